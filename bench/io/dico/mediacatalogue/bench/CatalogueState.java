@@ -0,0 +1,33 @@
+package io.dico.mediacatalogue.bench;
+
+import io.dico.mediacatalogue.MediaContainer;
+import io.dico.mediacatalogue.media.Media;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * A synthetic catalogue shared by the benchmarks, generated once per trial for each size
+ */
+@State(Scope.Benchmark)
+public class CatalogueState {
+
+    static final long seed = 42;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    public MediaContainer container;
+    public List<Media> items;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        container = SyntheticCatalogue.container(size, seed);
+        items = container.snapshot();
+    }
+
+}
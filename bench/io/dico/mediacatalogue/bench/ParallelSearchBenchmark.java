@@ -0,0 +1,78 @@
+package io.dico.mediacatalogue.bench;
+
+import io.dico.mediacatalogue.MediaContainer;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.Criteria;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how full-scan searches scale with the amount of cores.
+ * Parallel streams run in the pool that starts them, so each search is started in a pool with the given parallelism.
+ *
+ * <p> Usage: ParallelSearchBenchmark [size] [criteria]
+ */
+public class ParallelSearchBenchmark {
+
+    private static final int warmupRounds = 10;
+    private static final int measuredRounds = 20;
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        // a regex without literals of three characters can't use the trigram index, so every item is tested
+        String input = args.length > 1 ? args[1] : "title matches \".*[aeiou]{2}.*[0-9]5\" | director contains an & rating > 4";
+
+        MediaContainer container = SyntheticCatalogue.container(size, 42);
+        Criteria criteria = Criteria.parse(input);
+        System.out.println(container.plan(criteria, true).explain());
+
+        List<Media> expected = container.getItemsByCriteria(criteria, false);
+        double sequential = measure(() -> container.getItemsByCriteria(criteria, false));
+        System.out.printf("%d items, %d matches%n", size, expected.size());
+        System.out.printf("sequential: %.2f ms%n", sequential);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> parallelisms = new ArrayList<>();
+        for (int parallelism = 1; parallelism < processors; parallelism *= 2) {
+            parallelisms.add(parallelism);
+        }
+        parallelisms.add(processors);
+
+        for (int parallelism : parallelisms) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<Media> result = pool.submit(() -> container.getItemsByCriteria(criteria, true)).get();
+                if (!result.equals(expected)) {
+                    throw new IllegalStateException("The parallel search returned different items");
+                }
+                double time = measure(() -> pool.submit(() -> container.getItemsByCriteria(criteria, true)).get());
+                System.out.printf("parallel, %d cores: %.2f ms (%.2fx)%n", parallelism, time, sequential / time);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private interface Search {
+        List<Media> run() throws Exception;
+    }
+
+    // returns the median time of a search in milliseconds
+    private static double measure(Search search) throws Exception {
+        for (int i = 0; i < warmupRounds; i++) {
+            search.run();
+        }
+        double[] times = new double[measuredRounds];
+        for (int i = 0; i < measuredRounds; i++) {
+            long start = System.nanoTime();
+            search.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[measuredRounds / 2];
+    }
+
+}
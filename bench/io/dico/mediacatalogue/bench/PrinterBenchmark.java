@@ -0,0 +1,49 @@
+package io.dico.mediacatalogue.bench;
+
+import io.dico.mediacatalogue.media.Film;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.util.Printer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders tables of all items, which have different types of media, and of only the films
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrinterBenchmark {
+
+    private List<Media> films;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogueState state) {
+        films = state.container.getItemsByType(Film.class);
+    }
+
+    @Benchmark
+    public String mixedTable(CatalogueState state) {
+        return Printer.createItemTable(state.items, true);
+    }
+
+    @Benchmark
+    public String filmTable() {
+        return Printer.createItemTable(films, false);
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.dico.mediacatalogue.bench;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.Criteria;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the items of a catalogue against criteria, for every search operator and the boolean operators.
+ * testEveryItem measures Criteria.test alone, search measures the query planner and indexes of the container.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    @Param({
+            // the search operators
+            "title = \"storm silent wild stone 17\"",
+            "title contains ghost",
+            "\"year of release\" < 1950",
+            "rating <= 2",
+            "duration > 2:30",
+            "\"year of release\" >= 2010",
+            "director find ^K",
+            "title matches \".*storm [0-9]+\"",
+            // the boolean operators
+            "rating > 7 & studio = Atlas",
+            "director = Lynch | artist = Lynch",
+            "rating > 8 <implies> \"year of release\" > 2000",
+            "title contains fire <reverse_implies> channel = ITV",
+            "title !contains red & rating >= 5 | type = \"audio track\" & duration < 2:00"
+    })
+    public String input;
+
+    private Criteria criteria;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        criteria = Criteria.parse(input);
+    }
+
+    @Benchmark
+    public int testEveryItem(CatalogueState state) {
+        int matches = 0;
+        for (Media media : state.items) {
+            if (criteria.test(media)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public List<Media> search(CatalogueState state) {
+        return state.container.getItemsByCriteria(criteria);
+    }
+
+}
@@ -0,0 +1,91 @@
+package io.dico.mediacatalogue.bench;
+
+import io.dico.mediacatalogue.MediaContainer;
+import io.dico.mediacatalogue.storage.BinaryCatalogue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and loads a catalogue, as json and in the binary format.
+ * The files to load are saved once per trial, the saved files are overwritten every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    private File loadFile;
+    private File saveFile;
+    private File loadBinaryFile;
+    private File saveBinaryFile;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogueState state) throws IOException {
+        loadFile = File.createTempFile("catalogue-load", ".json");
+        saveFile = File.createTempFile("catalogue-save", ".json");
+        state.container.save(loadFile.getPath(), false);
+        loadBinaryFile = File.createTempFile("catalogue-load", BinaryCatalogue.EXTENSION);
+        saveBinaryFile = File.createTempFile("catalogue-save", BinaryCatalogue.EXTENSION);
+        state.container.save(loadBinaryFile.getPath(), false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loadFile.delete();
+        saveFile.delete();
+        loadBinaryFile.delete();
+        saveBinaryFile.delete();
+    }
+
+    @Benchmark
+    public MediaContainer load() throws IOException {
+        MediaContainer container = new MediaContainer();
+        container.load(loadFile.getPath());
+        return container;
+    }
+
+    @Benchmark
+    public long save(CatalogueState state) throws IOException {
+        state.container.save(saveFile.getPath(), false);
+        return saveFile.length();
+    }
+
+    @Benchmark
+    public MediaContainer loadBinary() throws IOException {
+        MediaContainer container = new MediaContainer();
+        container.load(loadBinaryFile.getPath());
+        return container;
+    }
+
+    @Benchmark
+    public long saveBinary(CatalogueState state) throws IOException {
+        state.container.save(saveBinaryFile.getPath(), false);
+        return saveBinaryFile.length();
+    }
+
+    @Benchmark
+    public int roundTrip(CatalogueState state) throws IOException {
+        state.container.save(saveFile.getPath(), false);
+        MediaContainer container = new MediaContainer();
+        container.load(saveFile.getPath());
+        return container.size();
+    }
+
+}
@@ -0,0 +1,94 @@
+package io.dico.mediacatalogue.bench;
+
+import io.dico.mediacatalogue.MediaContainer;
+import io.dico.mediacatalogue.media.AudioTrack;
+import io.dico.mediacatalogue.media.Film;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.TelevisionProgramme;
+import io.dico.mediacatalogue.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates catalogues of films, audio tracks and tv programmes for benchmarks.
+ * The same size and seed always produce the same items, in the same order.
+ */
+public class SyntheticCatalogue {
+
+    private static final String[] words = {
+            "red", "night", "river", "ghost", "summer", "iron", "silent", "golden", "last", "broken",
+            "city", "garden", "storm", "echo", "winter", "shadow", "northern", "glass", "paper", "wild",
+            "dance", "light", "stone", "heart", "empire", "ocean", "fire", "velvet", "secret", "machine"
+    };
+    private static final String[] names = {
+            "Anderson", "Bergman", "Coppola", "Dupont", "Eastwood", "Fincher", "Gerwig", "Hitchcock",
+            "Iwai", "Jarmusch", "Kubrick", "Lynch", "Miyazaki", "Nolan", "Ozu", "Park", "Scott", "Varda"
+    };
+    private static final String[] companies = {
+            "Northlight", "Blue Harbour", "Paramount", "Riverside", "Atlas", "Lumen", "Vinyl Works", "Stonegate"
+    };
+    private static final String[] channels = {"BBC One", "BBC Two", "Channel 4", "ITV", "Sky One", "Netflix"};
+
+    private final Random random;
+
+    public SyntheticCatalogue(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param size the amount of items
+     * @param seed the seed
+     * @return A new container with the generated items
+     */
+    public static MediaContainer container(int size, long seed) {
+        MediaContainer container = new MediaContainer();
+        container.addAll(new SyntheticCatalogue(seed).generate(size));
+        return container;
+    }
+
+    /**
+     * Generates items, of which half are films, a third are audio tracks and the rest are tv programmes
+     * @param size the amount of items
+     * @return the items
+     */
+    public List<Media> generate(int size) {
+        List<Media> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(next(i));
+        }
+        return result;
+    }
+
+    private Media next(int number) {
+        // the number makes titles unique, such that no items are equal
+        String title = phrase(1 + random.nextInt(4)) + " " + number;
+        int rating = 1 + random.nextInt(10);
+        int releaseYear = 1920 + random.nextInt(100);
+        int kind = random.nextInt(6);
+        if (kind < 3) {
+            Duration duration = new Duration(60 * (60 + random.nextInt(120)), true);
+            return new Film(title, rating, releaseYear, duration, pick(companies), pick(names));
+        }
+        if (kind < 5) {
+            Duration duration = new Duration(90 + random.nextInt(360), false);
+            return new AudioTrack(title, rating, releaseYear, duration, pick(names), pick(companies));
+        }
+        String episode = "S" + (1 + random.nextInt(10)) + "E" + (1 + random.nextInt(24));
+        return new TelevisionProgramme(title, rating, releaseYear, phrase(2), episode, pick(companies), pick(channels));
+    }
+
+    private String phrase(int length) {
+        StringBuilder sb = new StringBuilder(pick(words));
+        for (int i = 1; i < length; i++) {
+            sb.append(' ').append(pick(words));
+        }
+        return sb.toString();
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+}
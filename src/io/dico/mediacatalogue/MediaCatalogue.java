@@ -5,6 +5,7 @@ import io.dico.mediacatalogue.media.AudioTrack;
 import io.dico.mediacatalogue.media.Film;
 import io.dico.mediacatalogue.media.Media;
 import io.dico.mediacatalogue.media.TelevisionProgramme;
+import io.dico.mediacatalogue.media.builder.AbstractMediaBuilder;
 import io.dico.mediacatalogue.media.builder.AudioTrackBuilder;
 import io.dico.mediacatalogue.media.builder.FilmBuilder;
 import io.dico.mediacatalogue.media.builder.MediaBuilder;
@@ -12,7 +13,12 @@ import io.dico.mediacatalogue.media.builder.TelevisionProgrammeBuilder;
 import io.dico.mediacatalogue.menu.MediaTypeMenu;
 import io.dico.mediacatalogue.menu.Menu;
 import io.dico.mediacatalogue.menu.MenuItem;
+import io.dico.mediacatalogue.menu.searchmenu.Criteria;
 import io.dico.mediacatalogue.menu.searchmenu.SearchMenuItem;
+import io.dico.mediacatalogue.query.QueryPlan;
+import io.dico.mediacatalogue.storage.BinaryCatalogue;
+import io.dico.mediacatalogue.storage.CatalogueLoader;
+import io.dico.mediacatalogue.storage.ParallelCatalogueLoader;
 import io.dico.mediacatalogue.util.ConsoleOperator;
 import io.dico.mediacatalogue.util.Duration;
 import io.dico.mediacatalogue.util.Printer;
@@ -20,11 +26,14 @@ import io.dico.mediacatalogue.util.Printer;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
-import java.util.function.Consumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 public class MediaCatalogue {
@@ -40,9 +49,12 @@ public class MediaCatalogue {
     private final AudioTrackBuilder audioTrackBuilder;
     private final TelevisionProgrammeBuilder televisionProgrammeBuilder;
     private final MediaContainer mediaContainer;
-    private List<Media> lastSearch;
+    // the ids of the items found by the last search. Ids of items that were removed since are skipped when it's used
+    private int[] lastSearch;
     private String fileLoadedFrom;
-    private boolean saveScheduled;
+    // the last save, which is written in the background, and its file
+    private Future<?> lastSave;
+    private String lastSaveFile;
     
     private MediaCatalogue() {
         console = new ConsoleOperator(new Supplier<String>() {
@@ -63,22 +75,29 @@ public class MediaCatalogue {
         MenuItem.setConsole(console);
         
         mediaContainer = new MediaContainer();
+        mediaContainer.setJournaling(true);
         menu = createMenu();
         filmBuilder = new FilmBuilder(console);
         audioTrackBuilder = new AudioTrackBuilder(console);
         televisionProgrammeBuilder = new TelevisionProgrammeBuilder(console);
+        filmBuilder.setDictionary(mediaContainer.getDictionary());
+        audioTrackBuilder.setDictionary(mediaContainer.getDictionary());
+        televisionProgrammeBuilder.setDictionary(mediaContainer.getDictionary());
     }
     
     private Menu createMenu() {
         return new Menu("Welcome to your media catalogue. Please select an item by number or name to continue:")
+                .withStatus(this::saveStatus)
                 .addItem(MenuItem.withRunnable("exit", this::exit))
                 .addItem(MenuItem.withRunnable("load", this::load))
                 .addItem(MenuItem.withRunnable("save", this::save))
                 .addItem(new MediaTypeMenu("Enter type of media to add", null, this::newItem)
                         .asItem("new"))
-                .addItem(SearchMenuItem.withConsumer("search", mediaContainer, this::processSearch))
+                .addItem(SearchMenuItem.withConsumer("search", mediaContainer, this::processSearch)
+                        .addToListMenu(MenuItem.withRunnable("explain criteria", this::explain)))
                 .addItem(SearchMenuItem.withConsumer("remove", mediaContainer, this::processRemove)
                         .addToListMenu(MenuItem.withRunnable("use last search", usingLastSearchForAction(this::processRemove))))
+                .addItem(MenuItem.withRunnable("remove where", this::removeWhere))
                 .addItem(SearchMenuItem.withConsumer("edit", mediaContainer, this::processEdit)
                         .addToListMenu(MenuItem.withRunnable("use last search", usingLastSearchForAction(this::processEdit))));
     }
@@ -89,6 +108,43 @@ public class MediaCatalogue {
             requestActionsContinuously();
         } catch (ExitingException e) {
             console.writeLine("See you next time!");
+        } finally {
+            finishSaving();
+        }
+    }
+    
+    // waits for the save in the background and a compaction of the journal
+    private void finishSaving() {
+        if (mediaContainer.isSaving()) {
+            console.writeLine("Waiting for the save to finish...");
+        }
+        try {
+            mediaContainer.awaitSave();
+        } catch (IOException e) {
+            console.writeLine("Error occurred while saving: " + e.getMessage());
+        }
+        try {
+            mediaContainer.closeJournal();
+        } catch (IOException e) {
+            console.writeLine("Error occurred while saving: " + e.getMessage());
+        }
+    }
+    
+    private String saveStatus() {
+        if (lastSave == null) {
+            return null;
+        }
+        if (!lastSave.isDone()) {
+            return "Saving to " + lastSaveFile + "...";
+        }
+        try {
+            lastSave.get();
+            return "Saved to " + lastSaveFile;
+        } catch (ExecutionException e) {
+            return "Saving to " + lastSaveFile + " failed: " + e.getCause().getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
     }
     
@@ -102,12 +158,12 @@ public class MediaCatalogue {
             }
         }
     
-        if (saveScheduled) {
+        if (mediaContainer.hasUnsavedChanges()) {
             save();
         }
     }
     
-    private MediaBuilder builderFor(Class<? extends Media> mediaClass) {
+    private MediaBuilder<?> builderFor(Class<? extends Media> mediaClass) {
         if (mediaClass == Film.class) {
             return filmBuilder;
         } else if (mediaClass == AudioTrack.class) {
@@ -125,20 +181,15 @@ public class MediaCatalogue {
         } else {
             console.writeLine("Added: ");
             console.writeLine(Printer.createItemTable(ImmutableList.of(media), false));
-            saveScheduled = true;
         }
     }
     
     private void removeMedia(Media media) {
-        if (mediaContainer.remove(media))
-            saveScheduled = true;
-            if (lastSearch != null) {
-                lastSearch.remove(media);
-            }
+        mediaContainer.remove(media);
     }
     
     private void newItem(Class<? extends Media> type) {
-        MediaBuilder builder = builderFor(type);
+        MediaBuilder<?> builder = builderFor(type);
         if (builder == null) {
             // shouldn't happen
             console.writeLine("That type does not exist");
@@ -147,18 +198,19 @@ public class MediaCatalogue {
         }
     }
     
-    private Runnable usingLastSearchForAction(Consumer<List<Media>> action) {
+    private Runnable usingLastSearchForAction(BiConsumer<int[], List<Media>> action) {
         return () -> {
             if (lastSearch == null) {
                 console.writeLine("You haven't searched anything yet");
             } else {
-                action.accept(lastSearch);
+                pruneLastSearch();
+                action.accept(lastSearch, mediaContainer.getByIds(lastSearch));
             }
         };
     }
     
-    private void processEdit(List<Media> matches) {
-        lastSearch = matches;
+    private void processEdit(int[] ids, List<Media> matches) {
+        lastSearch = ids;
         console.writeLine("The following matches were found:");
         String table = Printer.createItemTable(matches, true);
         console.writeLine(table);
@@ -177,7 +229,7 @@ public class MediaCatalogue {
         }
         
         // construct a media builder and set its defaults to the current values
-        MediaBuilder builder;
+        AbstractMediaBuilder<?> builder;
         if (toEdit instanceof Film) {
             builder = new FilmBuilder(console, defaults);
         } else if (toEdit instanceof AudioTrack) {
@@ -190,6 +242,7 @@ public class MediaCatalogue {
             return;
         }
         
+        builder.setDictionary(mediaContainer.getDictionary());
         Media newItem = builder.build();
         if (newItem.equals(toEdit)) {
             console.writeLine("You haven't changed anything! hihi");
@@ -201,7 +254,6 @@ public class MediaCatalogue {
             return;
         }
         
-        saveScheduled = true;
         console.writeLine("Would you like to keep the old item? (y/n)");
         boolean keep = console.requestYesOrNo();
         if (!keep) {
@@ -209,8 +261,8 @@ public class MediaCatalogue {
         }
     }
     
-    private void processRemove(List<Media> matches) {
-        lastSearch = matches;
+    private void processRemove(int[] ids, List<Media> matches) {
+        lastSearch = ids;
         console.writeLine("The following matches were found:");
         String table = Printer.createItemTable(matches, true);
         console.writeLine(table);
@@ -218,9 +270,8 @@ public class MediaCatalogue {
         Media toRemove = selectItem(matches, true);
         if (toRemove == null) {
             // remove all matches
-            for (Media match : matches) {
-                removeMedia(match);
-            }
+            mediaContainer.removeAll(matches);
+            pruneLastSearch();
             console.writeLine("Removed items successfully");
         } else {
             removeMedia(toRemove);
@@ -228,13 +279,45 @@ public class MediaCatalogue {
         }
     }
     
-    private void processSearch(List<Media> matches) {
-        lastSearch = matches;
+    // removes the items matching criteria without listing them first
+    private void removeWhere() {
+        Criteria criteria = SearchMenuItem.requestCriteria("Enter criteria of the items to remove");
+        int removed = mediaContainer.removeAll(criteria);
+        pruneLastSearch();
+        console.writeLine(removed == 1 ? "Removed 1 item" : "Removed " + removed + " items");
+    }
+    
+    // drops the ids of removed items from the last search, in one pass
+    private void pruneLastSearch() {
+        if (lastSearch != null) {
+            int count = 0;
+            for (int id : lastSearch) {
+                if (mediaContainer.containsId(id)) {
+                    lastSearch[count++] = id;
+                }
+            }
+            if (count < lastSearch.length) {
+                lastSearch = Arrays.copyOf(lastSearch, count);
+            }
+        }
+    }
+    
+    private void processSearch(int[] ids, List<Media> matches) {
+        lastSearch = ids;
         console.writeLine("The following matches were found:");
         String table = Printer.createItemTable(matches, false);
         console.writeLine(table);
     }
     
+    private void explain() {
+        Criteria criteria = SearchMenuItem.requestCriteria("Enter criteria to explain");
+        QueryPlan plan = mediaContainer.plan(criteria);
+        int matches = plan.execute().size();
+        console.writeLine("The search was executed as follows:");
+        console.writeLine(plan.explain());
+        console.writeLine(matches + " items matched");
+    }
+    
     private Media selectItem(List<Media> items, boolean allowAll) {
         // request a number from the user that was in front of the list of media items displayed
         // then return the selected media item
@@ -271,11 +354,15 @@ public class MediaCatalogue {
             
             console.writeLine("Enter path to file (from home folder, without extension)");
             String input = console.requestLine();
-            String fileName = System.getProperty("user.home") + File.separator + input + ".json";
+            String fileName = catalogueFile(input);
             console.writeLine("Loading from " + fileName);
             
+            // report progress for large files, which take a while to load
+            CatalogueLoader loader = new ParallelCatalogueLoader().withProgress((items, bytes, totalBytes) ->
+                    console.writeLine(String.format("Loaded %d items (%d%%)", items, totalBytes == 0 ? 100 : bytes * 100 / totalBytes)),
+                    100_000, 64 << 20);
             try {
-                mediaContainer.load(fileName);
+                mediaContainer.load(fileName, loader);
                 if (fileLoadedFrom == null) {
                     fileLoadedFrom = input;
                 }
@@ -287,6 +374,15 @@ public class MediaCatalogue {
         }
     }
     
+    // the catalogue with the given name in the home folder, which is the binary one if it exists
+    private static String catalogueFile(String name) {
+        String path = System.getProperty("user.home") + File.separator + name;
+        if (new File(path + BinaryCatalogue.EXTENSION).exists()) {
+            return path + BinaryCatalogue.EXTENSION;
+        }
+        return path + ".json";
+    }
+    
     private void save() {
         boolean createFile = false;
         while (true) {
@@ -304,10 +400,14 @@ public class MediaCatalogue {
             if (file.isEmpty() && fileLoadedFrom != null) {
                 file = fileLoadedFrom;
             }
-            file = System.getProperty("user.home") + File.separator + file + ".json";
+            file = catalogueFile(file);
             
             try {
-                mediaContainer.save(file, createFile);
+                lastSave = mediaContainer.saveInBackground(file, createFile);
+                lastSaveFile = file;
+                if (!lastSave.isDone()) {
+                    console.writeLine("Saving in the background");
+                }
                 return;
             } catch (IOException e) {
                 if (e instanceof FileNotFoundException && !createFile) {
@@ -1,21 +1,52 @@
 package io.dico.mediacatalogue;
 
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonWriter;
+import io.dico.mediacatalogue.index.BitmapIndex;
+import io.dico.mediacatalogue.index.DictionaryIndex;
+import io.dico.mediacatalogue.index.IntRangeIndex;
+import io.dico.mediacatalogue.index.MediaIndex;
+import io.dico.mediacatalogue.index.TitleIndex;
+import io.dico.mediacatalogue.index.TokenIndex;
+import io.dico.mediacatalogue.index.TrigramIndex;
+import io.dico.mediacatalogue.index.TypeIndex;
 import io.dico.mediacatalogue.media.AudioTrack;
 import io.dico.mediacatalogue.media.Film;
 import io.dico.mediacatalogue.media.Media;
-import io.dico.mediacatalogue.media.TelevisionProgramme;
+import io.dico.mediacatalogue.media.MediaSchema;
+import io.dico.mediacatalogue.menu.searchmenu.Criteria;
+import io.dico.mediacatalogue.query.QueryPlan;
+import io.dico.mediacatalogue.query.QueryPlanner;
+import io.dico.mediacatalogue.storage.BinaryCatalogue;
+import io.dico.mediacatalogue.storage.CatalogueJournal;
+import io.dico.mediacatalogue.storage.CatalogueLoader;
+import io.dico.mediacatalogue.storage.CatalogueWriter;
+import io.dico.mediacatalogue.util.Duration;
+import io.dico.mediacatalogue.util.IntMediaMap;
+import io.dico.mediacatalogue.util.StringDictionary;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-public class MediaContainer extends LinkedHashSet<Media> {
+public class MediaContainer extends AbstractSet<Media> {
     
     private static MediaContainer instance;
     
@@ -23,84 +54,770 @@ public class MediaContainer extends LinkedHashSet<Media> {
         return instance;
     }
     
+    private static Duration durationOf(Media media) {
+        if (media instanceof Film) {
+            return ((Film) media).duration();
+        }
+        if (media instanceof AudioTrack) {
+            return ((AudioTrack) media).duration();
+        }
+        return null;
+    }
+    
+    /**
+     * The default size from which searches are parallel
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+    
+    // the items of each type of media in insertion order, mapped to their id: the order in which they were added to this container
+    private final Map<Media, Integer>[] partitions;
+    private final IntMediaMap itemsById = new IntMediaMap();
+    private final BitmapIndex bitmapIndex = new BitmapIndex(itemsById::get);
+    private int size;
+    private int nextSequenceNumber;
+    // the items in insertion order, rebuilt on demand after a modification. Arrays split evenly for parallel streams
+    private Media[] snapshot;
+    // for each type of media, the amount of changes to its items and its items in insertion order, rebuilt on demand
+    private final int[] modCounts = new int[MediaSchema.values().size()];
+    private final Media[][] sections = new Media[MediaSchema.values().size()][];
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private final TitleIndex titleIndex = new TitleIndex();
+    // shares the instances of repeated strings of the items, and gives them codes for the dictionary index.
+    // The codes of removed strings aren't freed, so it's started over when the container is cleared or loaded into while empty
+    private final StringDictionary dictionary = new StringDictionary();
+    private final List<MediaIndex> indexes = new ArrayList<>();
+    private boolean journaling;
+    // records the changes since the file was last written in full, if journaling
+    private CatalogueJournal journal;
+    private ExecutorService saveExecutor;
+    // the last save in the background, and the journal that was started for its file
+    private Future<?> lastSave;
+    private CatalogueJournal lastSaveJournal;
+    // the file that was last loaded into an empty container or saved to, and the changes to each type at that time
+    private Path savedPath;
+    private int[] savedModCounts = new int[MediaSchema.values().size()];
+    // the counts before the last save in the background, which are restored if it failed
+    private int[] modCountsBeforeSave;
+    // keeps the json of the types of media that didn't change since the last save. Only used by the save thread
+    private final CatalogueWriter writer = new CatalogueWriter();
+    private final QueryPlanner planner = new QueryPlanner(this, this::snapshot, indexes, Comparator.comparingInt(this::sequenceNumber), bitmapIndex);
+    
     public MediaContainer() {
         instance = this;
+        partitions = newPartitions(MediaSchema.values().size());
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new LinkedHashMap<>();
+        }
+        indexes.add(titleIndex);
+        indexes.add(new TypeIndex(this::snapshot));
+        indexes.add(new IntRangeIndex("year of release", media -> true, Media::releaseYear, true));
+        indexes.add(new IntRangeIndex("rating", media -> true, Media::rating, true));
+        indexes.add(new IntRangeIndex("duration", media -> durationOf(media) != null, media -> durationOf(media).intValue(), false));
+        String[] stringFields = {"title", "studio", "director", "artist", "record label", "series", "episode", "channel"};
+        indexes.add(new DictionaryIndex(dictionary, Arrays.copyOfRange(stringFields, 1, stringFields.length)));
+        indexes.add(new TokenIndex(stringFields));
+        indexes.add(new TrigramIndex(stringFields));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<Media, Integer>[] newPartitions(int length) {
+        return (Map<Media, Integer>[]) new Map<?, ?>[length];
+    }
+    
+    @Override
+    public boolean add(Media media) {
+        if (!insert(media)) {
+            return false;
+        }
+        for (MediaIndex index : indexes) {
+            index.add(media);
+        }
+        if (journal != null) {
+            journal.added(media);
+        }
+        return true;
+    }
+    
+    /**
+     * Adds the items that aren't in this container yet, in order. The indexes are updated in parallel.
+     * @param c the items
+     * @return true if any item was added
+     */
+    @Override
+    public boolean addAll(Collection<? extends Media> c) {
+        List<Media> added = new ArrayList<>(c.size());
+        for (Media media : c) {
+            if (insert(media)) {
+                added.add(media);
+                if (journal != null) {
+                    journal.added(media);
+                }
+            }
+        }
+        if (added.isEmpty()) {
+            return false;
+        }
+        indexes.parallelStream().forEach(index -> index.addAll(added));
+        return true;
+    }
+    
+    // adds the item to its partition, if it isn't there yet
+    private boolean insert(Media media) {
+        Map<Media, Integer> partition = partitions[media.schema().ordinal()];
+        if (partition.putIfAbsent(media, nextSequenceNumber) != null) {
+            return false;
+        }
+        itemsById.put(nextSequenceNumber, media);
+        bitmapIndex.add(nextSequenceNumber, media);
+        nextSequenceNumber++;
+        size++;
+        modified(media);
+        return true;
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        Media media = extract(o);
+        if (media == null) {
+            return false;
+        }
+        for (MediaIndex index : indexes) {
+            index.remove(media);
+        }
+        if (journal != null) {
+            journal.removed(media);
+        }
+        return true;
+    }
+    
+    /**
+     * Removes the items in one pass. The indexes are updated in parallel, and the journal once, afterwards.
+     * @param c the items
+     * @return true if any item was removed
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        // the indexes aren't changed until all items were found, as the collection may be a view of one of them
+        List<Media> removed = new ArrayList<>(Math.min(c.size(), size));
+        for (Object o : c) {
+            Media media = extract(o);
+            if (media != null) {
+                removed.add(media);
+            }
+        }
+        if (removed.isEmpty()) {
+            return false;
+        }
+        indexes.parallelStream().forEach(index -> index.removeAll(removed));
+        if (journal != null) {
+            journal.removedAll(removed);
+        }
+        return true;
+    }
+    
+    /**
+     * @param criteria the criteria
+     * @return the amount of items that matched the criteria, and were removed
+     */
+    public int removeAll(Criteria criteria) {
+        List<Media> matches = getItemsByCriteria(criteria);
+        int count = matches.size();
+        removeAll(matches);
+        return count;
+    }
+    
+    // removes the item from its partition and the bitmaps, returning the item in this container,
+    // whose rating may differ from the equal item that was given, or null if there was none
+    private Media extract(Object o) {
+        Integer id = o instanceof Media ? partitions[((Media) o).schema().ordinal()].remove(o) : null;
+        if (id == null) {
+            return null;
+        }
+        Media media = itemsById.remove(id);
+        size--;
+        modified(media);
+        bitmapIndex.remove(id, media);
+        return media;
+    }
+    
+    @Override
+    public void clear() {
+        for (Map<Media, Integer> partition : partitions) {
+            partition.clear();
+        }
+        itemsById.clear();
+        bitmapIndex.clear();
+        size = 0;
+        snapshot = null;
+        for (int i = 0; i < modCounts.length; i++) {
+            modCounts[i]++;
+            sections[i] = null;
+        }
+        clearDictionary();
+        if (journal != null) {
+            journal.cleared();
+        }
+    }
+
+    // only called when there are no items, so nothing refers to the codes of the dictionary anymore
+    private void clearDictionary() {
+        for (MediaIndex index : indexes) {
+            index.clear();
+        }
+        dictionary.clear();
+    }
+    
+    private void modified(Media media) {
+        int ordinal = media.schema().ordinal();
+        modCounts[ordinal]++;
+        sections[ordinal] = null;
+        snapshot = null;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Media && partitions[((Media) o).schema().ordinal()].containsKey(o);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    // the position of an item in the order items were added, which is its id
+    private int sequenceNumber(Media media) {
+        return partitions[media.schema().ordinal()].get(media);
+    }
+    
+    /**
+     * Ids are handed out in the order items are added, and an item keeps its id until it is removed.
+     * An item that is added again gets a new id.
+     * @param media an item
+     * @return The id of the item, or -1 if it isn't in this container
+     */
+    public int idOf(Media media) {
+        Integer id = partitions[media.schema().ordinal()].get(media);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * @param items items, in any order
+     * @return The ids of the items that are in this container, in the same order
+     */
+    public int[] idsOf(Collection<? extends Media> items) {
+        int[] result = new int[items.size()];
+        int count = 0;
+        for (Media media : items) {
+            int id = idOf(media);
+            if (id >= 0) {
+                result[count++] = id;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+    
+    /**
+     * @param id an id
+     * @return The item with the id, or null if no item in this container has it
+     */
+    public Media getById(int id) {
+        return itemsById.get(id);
+    }
+    
+    /**
+     * @param id an id
+     * @return true if an item in this container has the id
+     */
+    public boolean containsId(int id) {
+        return itemsById.containsKey(id);
+    }
+    
+    /**
+     * @param ids ids, in any order
+     * @return The items with the ids, in the same order. Ids of items that were removed are skipped.
+     */
+    public List<Media> getByIds(int[] ids) {
+        List<Media> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Media media = itemsById.get(id);
+            if (media != null) {
+                result.add(media);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * @param id an id
+     * @return true if an item had the id, and was removed
+     */
+    public boolean removeById(int id) {
+        Media media = itemsById.get(id);
+        return media != null && remove(media);
+    }
+    
+    /**
+     * Iterates the items in the order they were added, as they were when this was called.
+     * Removing items through the iterator removes them from this container.
+     */
+    @Override
+    public Iterator<Media> iterator() {
+        List<Media> items = snapshot();
+        return new Iterator<Media>() {
+            private int position;
+            private Media current;
+            
+            @Override
+            public boolean hasNext() {
+                return position < items.size();
+            }
+            
+            @Override
+            public Media next() {
+                if (position >= items.size()) {
+                    throw new NoSuchElementException();
+                }
+                return current = items.get(position++);
+            }
+            
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                MediaContainer.this.remove(current);
+                current = null;
+            }
+        };
+    }
+    
+    /**
+     * @return The items in the order they were added, backed by an array that isn't modified afterwards
+     */
+    public List<Media> snapshot() {
+        Media[] snapshot = this.snapshot;
+        if (snapshot == null) {
+            this.snapshot = snapshot = mergePartitions();
+        }
+        return Collections.unmodifiableList(Arrays.asList(snapshot));
+    }
+    
+    // merges the partitions by the order in which their items were added
+    private Media[] mergePartitions() {
+        Media[] result = new Media[size];
+        List<Iterator<Map.Entry<Media, Integer>>> iterators = new ArrayList<>(partitions.length);
+        List<Map.Entry<Media, Integer>> heads = new ArrayList<>(partitions.length);
+        for (Map<Media, Integer> partition : partitions) {
+            Iterator<Map.Entry<Media, Integer>> iterator = partition.entrySet().iterator();
+            if (iterator.hasNext()) {
+                iterators.add(iterator);
+                heads.add(iterator.next());
+            }
+        }
+        for (int i = 0; i < result.length; i++) {
+            int next = 0;
+            for (int j = 1; j < heads.size(); j++) {
+                if (heads.get(j).getValue() < heads.get(next).getValue()) {
+                    next = j;
+                }
+            }
+            result[i] = heads.get(next).getKey();
+            Iterator<Map.Entry<Media, Integer>> iterator = iterators.get(next);
+            if (iterator.hasNext()) {
+                heads.set(next, iterator.next());
+            } else {
+                iterators.remove(next);
+                heads.remove(next);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * @param schema the type of media
+     * @return The items of that type in the order they were added, backed by an array that isn't modified afterwards
+     */
+    public List<Media> snapshot(MediaSchema<?> schema) {
+        Media[] section = sections[schema.ordinal()];
+        if (section == null) {
+            section = partitions[schema.ordinal()].keySet().toArray(new Media[0]);
+            sections[schema.ordinal()] = section;
+        }
+        return Collections.unmodifiableList(Arrays.asList(section));
+    }
+    
+    /**
+     * @param schema the type of media
+     * @return The amount of changes to the items of that type so far
+     */
+    public int getModCount(MediaSchema<?> schema) {
+        return modCounts[schema.ordinal()];
+    }
+    
+    /**
+     * @param schema the type of media
+     * @return true if the items of that type changed since the file was last saved or loaded
+     */
+    public boolean isModified(MediaSchema<?> schema) {
+        return modCounts[schema.ordinal()] != savedModCounts()[schema.ordinal()];
+    }
+    
+    /**
+     * @return true if any items changed since the file was last saved or loaded
+     */
+    public boolean hasUnsavedChanges() {
+        return !Arrays.equals(modCounts, savedModCounts());
+    }
+    
+    // the counts of the last save, unless it failed in the background and awaitSave didn't restore them yet
+    private int[] savedModCounts() {
+        Future<?> save = lastSave;
+        if (save != null && save.isDone()) {
+            try {
+                save.get();
+            } catch (ExecutionException e) {
+                return modCountsBeforeSave;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return savedModCounts;
+    }
+    
+    /**
+     * @return The dictionary through which the items of this container share repeated strings.
+     * Builders and loaders of items for this container should use it too.
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
     }
     
+    /**
+     * @return The amount of items from which searches are done in parallel, unless requested otherwise
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+    
+    /**
+     * @param parallelThreshold the amount of items from which searches are done in parallel
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+    
+    /**
+     * @return true if searches are done in parallel by default, given the current amount of items
+     */
+    public boolean isParallelByDefault() {
+        return size >= parallelThreshold;
+    }
+    
+    /**
+     * @param title the title
+     * @return The items with exactly the given title, in the order they were added
+     */
+    public List<Media> getItemsByTitle(String title) {
+        return titleIndex.get(title);
+    }
+    
+    /**
+     * @param type the type of media, or null for all items
+     * @return The items of that type, in the order they were added
+     */
     public List<Media> getItemsByType(Class<? extends Media> type) {
         if (type == null) {
-            return new ArrayList<>(this);
+            return new ArrayList<>(snapshot());
         }
-        return getItemsByCriteria(type::isInstance);
+        MediaSchema<?> schema = MediaSchema.of(type);
+        if (schema == null) {
+            return getItemsByCriteria(type::isInstance);
+        }
+        return new ArrayList<>(snapshot(schema));
     }
     
     public List<Media> getItemsByCriteria(Predicate<Media> predicate) {
+        return getItemsByCriteria(predicate, isParallelByDefault());
+    }
+    
+    /**
+     * @param predicate the predicate, which must be safe to test from multiple threads if parallel is true
+     * @param parallel whether to test the items in parallel
+     * @return The matching items, in the order they were added
+     */
+    public List<Media> getItemsByCriteria(Predicate<Media> predicate, boolean parallel) {
+        if (parallel) {
+            return snapshot().parallelStream().filter(predicate).collect(Collectors.toList());
+        }
         return stream().filter(predicate).collect(Collectors.toList());
     }
+    
+    /**
+     * Finds the items matching the criteria, using the indexes where the query planner sees fit
+     * @param criteria the criteria
+     * @return The matching items, in the order they were added
+     */
+    public List<Media> getItemsByCriteria(Criteria criteria) {
+        return plan(criteria).execute();
+    }
+    
+    /**
+     * Same as getItemsByCriteria, but whether the remaining items are tested in parallel is specified
+     * @param criteria the criteria
+     * @param parallel whether to test the items in parallel
+     * @return The matching items, in the order they were added
+     */
+    public List<Media> getItemsByCriteria(Criteria criteria, boolean parallel) {
+        return plan(criteria, parallel).execute();
+    }
+    
+    /**
+     * @param criteria the criteria
+     * @return The ids of the items matching the criteria, in ascending order, which is the order they were added
+     */
+    public int[] getIdsByCriteria(Criteria criteria) {
+        return plan(criteria).executeIds(this::sequenceNumber);
+    }
+    
+    /**
+     * @param type the type of media, or null for all items
+     * @return The ids of the items of that type, in ascending order, which is the order they were added
+     */
+    public int[] getIdsByType(Class<? extends Media> type) {
+        if (type == null) {
+            return bitmapIndex.ids();
+        }
+        MediaSchema<?> schema = MediaSchema.of(type);
+        if (schema == null) {
+            return idsOf(getItemsByCriteria(type::isInstance));
+        }
+        return bitmapIndex.ids(schema);
+    }
+    
+    /**
+     * @param criteria the criteria
+     * @return A plan to find the items matching the criteria, which is parallel if this container is large enough
+     */
+    public QueryPlan plan(Criteria criteria) {
+        return plan(criteria, isParallelByDefault());
+    }
+    
+    /**
+     * @param criteria the criteria
+     * @param parallel whether the plan tests the remaining items in parallel
+     * @return A plan to find the items matching the criteria
+     */
+    public QueryPlan plan(Criteria criteria, boolean parallel) {
+        return planner.plan(criteria, parallel);
+    }
+
+    /**
+     * @return true if changes are recorded in a journal next to the file the items were loaded from or saved to
+     */
+    public boolean isJournaling() {
+        return journaling;
+    }
+
+    /**
+     * When journaling, loading a file into an empty container or saving to a new file starts a journal for that file.
+     * Saving to that file again then only appends the changes since, instead of writing all items.
+     * @param journaling whether to record changes in a journal
+     */
+    public void setJournaling(boolean journaling) {
+        this.journaling = journaling;
+    }
+
+    /**
+     * @return The journal that records changes to this container, or null if there is none
+     */
+    public CatalogueJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Stops recording changes, waiting for a compaction of the journal to finish.
+     * Changes that weren't saved are not written.
+     * @throws IOException if the compaction failed
+     */
+    public void closeJournal() throws IOException {
+        CatalogueJournal journal = this.journal;
+        this.journal = null;
+        if (journal != null) {
+            journal.close();
+        }
+    }
 
     public void load(String fileName) throws IOException {
-        File file = new File(fileName);
-        Reader fileReader = new FileReader(file);
-        JsonReader jsonReader = new JsonReader(fileReader);
-        jsonReader.beginObject();
-        while (jsonReader.hasNext()) {
-            final String key = jsonReader.nextName();
-            Supplier<Media> constructor;
-            switch (key) {
-                case "films":
-                    constructor = Film::new;
-                    break;
-                case "audio tracks":
-                    constructor = AudioTrack::new;
-                    break;
-                case "tv programmes":
-                    constructor = TelevisionProgramme::new;
-                    break;
-                default:
-                    jsonReader.skipValue();
-                    continue;
-            }
-
-            jsonReader.beginArray();
-            while (jsonReader.hasNext()) {
-                Media media = constructor.get();
-                media.readFrom(jsonReader);
-                add(media);
-            }
-            jsonReader.endArray();
-        }
-        jsonReader.endObject();
-        jsonReader.close();
+        load(fileName, new CatalogueLoader());
+    }
+
+    /**
+     * Adds the items in a file. Binary catalogues are recognized by their content, other files are read by the loader.
+     * The changes in the journal of the file are applied afterwards.
+     * Repeated strings are shared through the dictionary of this container, which is given to loaders that have none.
+     * @param fileName the file
+     * @param loader the loader
+     * @throws IOException if the file can't be read, or the load was cancelled
+     */
+    public void load(String fileName, CatalogueLoader loader) throws IOException {
+        Path path = Paths.get(fileName);
+        // the journal only describes the container if nothing else is in it
+        boolean wasEmpty = isEmpty();
+        boolean startJournal = journaling && journal == null && wasEmpty;
+        if (wasEmpty) {
+            // drops the strings of the items that were removed since the dictionary was last cleared
+            clearDictionary();
+        }
+        if (Files.exists(path) && BinaryCatalogue.isBinary(path)) {
+            BinaryCatalogue.read(path, this, dictionary);
+        } else {
+            if (loader.getDictionary() == null) {
+                loader.withDictionary(dictionary);
+            }
+            loader.load(path, this);
+        }
+        CatalogueJournal fileJournal = new CatalogueJournal(path, this::snapshot);
+        fileJournal.replay(this, dictionary);
+        if (startJournal) {
+            journal = fileJournal;
+        }
+        if (wasEmpty) {
+            savedPath = path.toAbsolutePath().normalize();
+            savedModCounts = modCounts.clone();
+        }
     }
 
+    /**
+     * Saves the items to a file, waiting for it to be written
+     * @param path the file, which is written in the binary format if it has the extension of that format
+     * @param createFile whether to create the file if it doesn't exist
+     * @throws IOException if the file can't be written
+     * @see #saveInBackground(String, boolean)
+     */
     public void save(String path, boolean createFile) throws IOException {
+        saveInBackground(path, createFile);
+        awaitSave();
+    }
+
+    /**
+     * Saves the items to a file on a background thread. The items are those in this container when this is called,
+     * and they are written to a temporary file that is then moved over the file.
+     * If the journal of this container belongs to the file, only the changes are appended to it, on this thread.
+     * Waits for the previous save to finish first.
+     * @param path the file, which is written in the binary format if it has the extension of that format
+     * @param createFile whether to create the file if it doesn't exist
+     * @return The save, which fails with the exception that occurred while writing
+     * @throws FileNotFoundException if the file doesn't exist and can't or shouldn't be created
+     * @throws IOException if the journal can't be written
+     */
+    public Future<?> saveInBackground(String path, boolean createFile) throws IOException {
+        awaitPreviousSave();
         File file = new File(path);
+        Path target = file.toPath().toAbsolutePath().normalize();
+        if (!hasUnsavedChanges() && target.equals(savedPath) && file.exists()) {
+            // the file is up to date
+            return CompletableFuture.completedFuture(null);
+        }
+        if (journal != null && journal.isFor(target) && file.exists()) {
+            journal.flush();
+            savedPath = target;
+            savedModCounts = modCounts.clone();
+            return CompletableFuture.completedFuture(null);
+        }
+        // a compaction may be writing the file of the current journal
+        closeJournal();
+
         if (createFile) {
             File parent = file.getParentFile();
             if ((parent == null || parent.exists() || parent.mkdirs()) && (file.exists() || file.createNewFile())) {
                 // created file successfully
             }
         }
-        PrintWriter printWriter = new PrintWriter(file);
-        JsonWriter jsonWriter = new JsonWriter(printWriter);
-        jsonWriter.setIndent("  ");
-        jsonWriter.beginObject();
-        saveMediaType("films", Film.class, jsonWriter);
-        saveMediaType("audio tracks", AudioTrack.class, jsonWriter);
-        saveMediaType("tv programmes", TelevisionProgramme.class, jsonWriter);
-        jsonWriter.endObject();
-        jsonWriter.close();
+        // json and binary files alike are only created if asked to
+        if (!file.exists()) {
+            throw new FileNotFoundException(path + " (No such file or directory)");
+        }
+
+        // the snapshots aren't modified afterwards, and neither are the items
+        List<MediaSchema<?>> schemas = MediaSchema.values();
+        List<List<Media>> sections = new ArrayList<>(schemas.size());
+        for (MediaSchema<?> schema : schemas) {
+            sections.add(snapshot(schema));
+        }
+        int[] versions = modCounts.clone();
+        CatalogueJournal fileJournal = journaling ? new CatalogueJournal(file.toPath(), this::snapshot) : null;
+        // changes made while saving are recorded in the journal, which is only flushed after this save finished
+        journal = fileJournal;
+        if (saveExecutor == null) {
+            saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "catalogue save");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        lastSaveJournal = fileJournal;
+        // assume the save succeeds, so the next save can be skipped. Undone by awaitSave if it failed
+        modCountsBeforeSave = savedModCounts;
+        savedPath = target;
+        savedModCounts = versions;
+        lastSave = saveExecutor.submit(() -> {
+            writer.write(sections, versions, file.toPath());
+            if (fileJournal != null) {
+                // the file holds all items now, so earlier journals of it are obsolete
+                fileJournal.discard();
+            }
+            return null;
+        });
+        return lastSave;
+    }
+
+    /**
+     * @return true if a save is running in the background
+     */
+    public boolean isSaving() {
+        Future<?> save = lastSave;
+        return save != null && !save.isDone();
     }
 
-    private void saveMediaType(String name, Class<? extends Media> type, JsonWriter writer) throws IOException {
-        writer.name(name);
-        writer.beginArray();
-        for (Media media : this) {
-            if (type.isInstance(media)) {
-                media.writeTo(writer);
+    /**
+     * Waits for the save in the background to finish
+     * @throws IOException if it failed, which is only thrown once
+     */
+    public void awaitSave() throws IOException {
+        Future<?> save = lastSave;
+        if (save == null) {
+            return;
+        }
+        try {
+            save.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while saving");
+        } catch (ExecutionException e) {
+            lastSave = null;
+            savedPath = null;
+            savedModCounts = modCountsBeforeSave;
+            // the journal of the file doesn't describe it if the file wasn't written
+            if (journal != null && journal == lastSaveJournal) {
+                closeJournal();
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
+            throw new IOException(cause);
+        }
+        lastSave = null;
+    }
+
+    // waits for the previous save, whose failure was reported through its future
+    private void awaitPreviousSave() throws InterruptedIOException {
+        try {
+            awaitSave();
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException ignored) {
         }
-        writer.endArray();
     }
 
 }
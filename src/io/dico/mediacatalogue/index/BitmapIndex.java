@@ -0,0 +1,292 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaSchema;
+import io.dico.mediacatalogue.menu.searchmenu.Expression;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+import io.dico.mediacatalogue.menu.searchmenu.SearchOperator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Bitmaps of the ids of the items in a container for the fields with few distinct values:
+ * the type, the rating and the decade of release. Conditions on these fields, and boolean combinations of them,
+ * are answered with bitwise operations on the bitmaps, without looking at any item.
+ *
+ * <p> Year of release conditions are answered if their bound is the start of a decade, as the bitmaps don't
+ * tell the years within a decade apart.
+ *
+ * <p> Ids are handed out densely in the order items are added, so a bitmap takes about a bit per item,
+ * and the ids it holds are in insertion order.
+ */
+public class BitmapIndex {
+
+    private final IntFunction<Media> itemsById;
+    private final BitSet all = new BitSet();
+    private final BitSet[] types = new BitSet[MediaSchema.values().size()];
+    private final Map<Integer, BitSet> ratings = new TreeMap<>();
+    private final Map<Integer, BitSet> decades = new TreeMap<>();
+
+    /**
+     * @param itemsById finds the item with an id in the container
+     */
+    public BitmapIndex(IntFunction<Media> itemsById) {
+        this.itemsById = itemsById;
+        for (int i = 0; i < types.length; i++) {
+            types[i] = new BitSet();
+        }
+    }
+
+    public void add(int id, Media media) {
+        all.set(id);
+        types[media.schema().ordinal()].set(id);
+        ratings.computeIfAbsent(media.rating(), rating -> new BitSet()).set(id);
+        decades.computeIfAbsent(Math.floorDiv(media.releaseYear(), 10), decade -> new BitSet()).set(id);
+    }
+
+    public void remove(int id, Media media) {
+        all.clear(id);
+        types[media.schema().ordinal()].clear(id);
+        clear(ratings, media.rating(), id);
+        clear(decades, Math.floorDiv(media.releaseYear(), 10), id);
+    }
+
+    private static void clear(Map<Integer, BitSet> bitmaps, int key, int id) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.clear(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        all.clear();
+        for (BitSet type : types) {
+            type.clear();
+        }
+        ratings.clear();
+        decades.clear();
+    }
+
+    /**
+     * @param ids ids of items in the container
+     * @return The items with the ids, in the order they were added
+     */
+    public List<Media> items(BitSet ids) {
+        List<Media> result = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            result.add(itemsById.apply(id));
+        }
+        return result;
+    }
+
+    /**
+     * @return The ids of all items, in ascending order
+     */
+    public int[] ids() {
+        return all.stream().toArray();
+    }
+
+    /**
+     * @param schema a type of media
+     * @return The ids of the items of that type, in ascending order
+     */
+    public int[] ids(MediaSchema<?> schema) {
+        return types[schema.ordinal()].stream().toArray();
+    }
+
+    /**
+     * @param expression an expression
+     * @return A new bitmap of the ids of the items matching the expression,
+     * or null if it has conditions that the bitmaps can't answer
+     */
+    public BitSet evaluate(Expression expression) {
+        if (expression instanceof Expression.Condition) {
+            Expression.Condition condition = (Expression.Condition) expression;
+            BitSet result = evaluate(condition.getCondition());
+            return result != null && condition.isNegated() ? not(result) : result;
+        }
+
+        Expression.Junction junction = (Expression.Junction) expression;
+        List<BitSet> operands = new ArrayList<>();
+        for (Expression operand : junction.getOperands()) {
+            BitSet result = evaluate(operand);
+            if (result == null) {
+                return null;
+            }
+            operands.add(result);
+        }
+        BitSet result = operands.get(0);
+        switch (junction.getOperator()) {
+            case AND:
+                for (int i = 1; i < operands.size(); i++) {
+                    result.and(operands.get(i));
+                }
+                return result;
+            case OR:
+                for (int i = 1; i < operands.size(); i++) {
+                    result.or(operands.get(i));
+                }
+                return result;
+            case IMPLIES:
+                result = not(result);
+                result.or(operands.get(1));
+                return result;
+            case REVERSE_IMPLIES:
+                result.or(not(operands.get(1)));
+                return result;
+            default:
+                return null;
+        }
+    }
+
+    private BitSet not(BitSet ids) {
+        BitSet result = (BitSet) all.clone();
+        result.andNot(ids);
+        return result;
+    }
+
+    private BitSet evaluate(SearchCondition condition) {
+        SearchOperator operator = condition.getOperator();
+        if (operator == null) {
+            return null;
+        }
+        // the other side must be a literal for every type of media, else it's replaced with a field value
+        String field;
+        String literal;
+        boolean literalFirst;
+        if (SearchCondition.isFieldName(condition.getLeft()) && !SearchCondition.isFieldName(condition.getRight())) {
+            field = condition.getLeft();
+            literal = condition.getRight();
+            literalFirst = false;
+        } else if (SearchCondition.isFieldName(condition.getRight()) && !SearchCondition.isFieldName(condition.getLeft())) {
+            field = condition.getRight();
+            literal = condition.getLeft();
+            literalFirst = true;
+        } else {
+            return null;
+        }
+
+        switch (field) {
+            case "type":
+                return "=".equals(operator.getName()) ? type(literal) : null;
+            case "rating":
+                if ("=".equals(operator.getName())) {
+                    return rating(literal);
+                }
+                return range(ratings, 1, operator.getName(), literal, literalFirst);
+            case "year of release":
+                return range(decades, 10, operator.getName(), literal, literalFirst);
+            default:
+                return null;
+        }
+    }
+
+    private BitSet type(String literal) {
+        for (MediaSchema<?> schema : MediaSchema.values()) {
+            if (schema.getTypeName().equals(literal)) {
+                return (BitSet) types[schema.ordinal()].clone();
+            }
+        }
+        return new BitSet();
+    }
+
+    private BitSet rating(String literal) {
+        // "=" compares the printed value, which is only equal to the canonical representation of a number
+        int rating;
+        try {
+            rating = Integer.parseInt(literal);
+        } catch (NumberFormatException e) {
+            return new BitSet();
+        }
+        BitSet bitmap = ratings.get(rating);
+        return bitmap == null || !Integer.toString(rating).equals(literal) ? new BitSet() : (BitSet) bitmap.clone();
+    }
+
+    // answers a comparison with the bitmaps of the values divided by the granularity,
+    // or returns null if the bound isn't a multiple of the granularity
+    private static BitSet range(Map<Integer, BitSet> bitmaps, int granularity, String operator, String literal, boolean literalFirst) {
+        // other operators, such as contains and find, compare the printed value
+        if (!isComparison(operator)) {
+            return null;
+        }
+        long constant;
+        try {
+            constant = SearchOperator.parseIntLiteral(literal);
+        } catch (IllegalArgumentException e) {
+            // a literal that isn't a number or duration never matches
+            return new BitSet();
+        }
+        if (literalFirst) {
+            switch (operator) {
+                case "<":
+                    operator = ">";
+                    break;
+                case "<=":
+                    operator = ">=";
+                    break;
+                case ">":
+                    operator = "<";
+                    break;
+                case ">=":
+                    operator = "<=";
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // the values from the bound on match if lower, else the values below the bound match
+        long bound;
+        boolean lower;
+        switch (operator) {
+            case ">=":
+                bound = constant;
+                lower = true;
+                break;
+            case ">":
+                bound = constant + 1;
+                lower = true;
+                break;
+            case "<":
+                bound = constant;
+                lower = false;
+                break;
+            case "<=":
+                bound = constant + 1;
+                lower = false;
+                break;
+            default:
+                return null;
+        }
+        if (Math.floorMod(bound, (long) granularity) != 0) {
+            return null;
+        }
+
+        long key = Math.floorDiv(bound, (long) granularity);
+        BitSet result = new BitSet();
+        for (Map.Entry<Integer, BitSet> entry : bitmaps.entrySet()) {
+            if (entry.getKey() >= key == lower) {
+                result.or(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static boolean isComparison(String operator) {
+        return "<".equals(operator) || "<=".equals(operator) || ">".equals(operator) || ">=".equals(operator);
+    }
+
+    @Override
+    public String toString() {
+        return "bitmap index";
+    }
+
+}
@@ -0,0 +1,150 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaField;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+import io.dico.mediacatalogue.util.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the values of string fields to the media items with that value, by the code that a string dictionary
+ * assigns to the value. "=" conditions between one of the fields and a literal are answered exactly
+ * by looking up the code of the literal, rather than by comparing strings.
+ */
+public class DictionaryIndex implements MediaIndex {
+
+    private final StringDictionary dictionary;
+    // for each field, the items by the code of their value
+    private final Map<String, List<Set<Media>>> fields = new HashMap<>();
+
+    /**
+     * @param dictionary the dictionary that assigns the codes, usually that of the catalogue
+     * @param fieldNames the names of the string fields to index
+     */
+    public DictionaryIndex(StringDictionary dictionary, String... fieldNames) {
+        this.dictionary = dictionary;
+        for (String field : fieldNames) {
+            fields.put(field, new ArrayList<>());
+        }
+    }
+
+    @Override
+    public void add(Media media) {
+        for (Map.Entry<String, List<Set<Media>>> entry : fields.entrySet()) {
+            add(entry.getKey(), entry.getValue(), media);
+        }
+    }
+
+    @Override
+    public void addAll(Collection<Media> items) {
+        // the fields have separate lists, and the dictionary may be used by multiple threads
+        fields.entrySet().parallelStream().forEach(entry -> {
+            for (Media media : items) {
+                add(entry.getKey(), entry.getValue(), media);
+            }
+        });
+    }
+
+    private void add(String fieldName, List<Set<Media>> itemsByCode, Media media) {
+        MediaField<?> field = media.schema().getField(fieldName);
+        if (field == null) {
+            return;
+        }
+        int code = dictionary.encode((String) field.get(media));
+        while (itemsByCode.size() <= code) {
+            itemsByCode.add(null);
+        }
+        Set<Media> items = itemsByCode.get(code);
+        if (items == null) {
+            items = new LinkedHashSet<>();
+            itemsByCode.set(code, items);
+        }
+        items.add(media);
+    }
+
+    @Override
+    public void remove(Media media) {
+        for (Map.Entry<String, List<Set<Media>>> entry : fields.entrySet()) {
+            remove(entry.getKey(), entry.getValue(), media);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Media> items) {
+        fields.entrySet().parallelStream().forEach(entry -> {
+            for (Media media : items) {
+                remove(entry.getKey(), entry.getValue(), media);
+            }
+        });
+    }
+
+    private void remove(String fieldName, List<Set<Media>> itemsByCode, Media media) {
+        MediaField<?> field = media.schema().getField(fieldName);
+        if (field == null) {
+            return;
+        }
+        int code = dictionary.find((String) field.get(media));
+        Set<Media> items = get(itemsByCode, code);
+        if (items.remove(media) && items.isEmpty()) {
+            itemsByCode.set(code, null);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (List<Set<Media>> itemsByCode : fields.values()) {
+            itemsByCode.clear();
+        }
+    }
+
+    private static Set<Media> get(List<Set<Media>> itemsByCode, int code) {
+        Set<Media> items = code >= 0 && code < itemsByCode.size() ? itemsByCode.get(code) : null;
+        return items == null ? Collections.emptySet() : items;
+    }
+
+    @Override
+    public Collection<Media> lookup(SearchCondition condition) {
+        if (!condition.hasOperator("=")) {
+            return null;
+        }
+        // the other side must be a literal for every type of media, else it's replaced with a field value
+        if (fields.containsKey(condition.getLeft()) && !SearchCondition.isFieldName(condition.getRight())) {
+            return lookup(fields.get(condition.getLeft()), condition.getRight());
+        }
+        if (fields.containsKey(condition.getRight()) && !SearchCondition.isFieldName(condition.getLeft())) {
+            return lookup(fields.get(condition.getRight()), condition.getLeft());
+        }
+        return null;
+    }
+
+    private Collection<Media> lookup(List<Set<Media>> itemsByCode, String literal) {
+        // a literal without a code isn't the value of any item
+        Set<Media> items = get(itemsByCode, dictionary.find(literal));
+        // "=" compares printed values, and a missing string is printed as "null"
+        if ("null".equals(literal) && !get(itemsByCode, StringDictionary.NULL).isEmpty()) {
+            List<Media> result = new ArrayList<>(items);
+            result.addAll(get(itemsByCode, StringDictionary.NULL));
+            return result;
+        }
+        return Collections.unmodifiableSet(items);
+    }
+
+    @Override
+    public boolean isExact(SearchCondition condition) {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "dictionary index";
+    }
+
+}
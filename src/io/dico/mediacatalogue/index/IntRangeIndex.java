@@ -0,0 +1,248 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+import io.dico.mediacatalogue.menu.searchmenu.SearchOperator;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps the media items that have an integer field sorted by the value of that field,
+ * such that range conditions on the field are answered by a binary search.
+ *
+ * <p> Items are appended unsorted when they are added, and the index is sorted again when it's used after that.
+ */
+public class IntRangeIndex implements MediaIndex {
+
+    private final String field;
+    private final Predicate<Media> hasField;
+    private final ToIntFunction<Media> valueFunction;
+    private final boolean supportsEquality;
+    private int[] keys = new int[16];
+    private Media[] items = new Media[16];
+    private int size;
+    private boolean sorted = true;
+
+    /**
+     * @param field the name of the field
+     * @param hasField tests if the media item has a value for the field
+     * @param valueFunction computes the value of the field
+     * @param supportsEquality true if the field is printed as its integer value, such that "=" can be answered as well
+     */
+    public IntRangeIndex(String field, Predicate<Media> hasField, ToIntFunction<Media> valueFunction, boolean supportsEquality) {
+        this.field = field;
+        this.hasField = hasField;
+        this.valueFunction = valueFunction;
+        this.supportsEquality = supportsEquality;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    @Override
+    public void add(Media media) {
+        if (!hasField.test(media)) {
+            return;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+        }
+        int key = valueFunction.applyAsInt(media);
+        if (size > 0 && key < keys[size - 1]) {
+            sorted = false;
+        }
+        keys[size] = key;
+        items[size] = media;
+        size++;
+    }
+
+    @Override
+    public void remove(Media media) {
+        if (!hasField.test(media)) {
+            return;
+        }
+        ensureSorted();
+        int key = valueFunction.applyAsInt(media);
+        for (int i = lowerBound(key); i < size && keys[i] == key; i++) {
+            if (items[i].equals(media)) {
+                System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                System.arraycopy(items, i + 1, items, i, size - i - 1);
+                items[--size] = null;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Media> items) {
+        // removing the items one at a time shifts the items after each of them, so they're all left out in one pass
+        Set<Media> removed = items instanceof Set ? (Set<Media>) items : new HashSet<>(items);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed.contains(this.items[i])) {
+                keys[count] = keys[i];
+                this.items[count] = this.items[i];
+                count++;
+            }
+        }
+        Arrays.fill(this.items, count, size, null);
+        size = count;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+        sorted = true;
+    }
+
+    /**
+     * @param from the lowest value, inclusive
+     * @param to the highest value, inclusive
+     * @return An unmodifiable copy of the items whose value lies in the range, ordered by value.
+     * It's a copy because lookups are made when a query is planned, and the index may change before it's executed
+     */
+    public List<Media> range(int from, int to) {
+        ensureSorted();
+        if (from > to) {
+            return Collections.emptyList();
+        }
+        int start = lowerBound(from);
+        int end = to == Integer.MAX_VALUE ? size : lowerBound(to + 1);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(items, start, end)));
+    }
+
+    @Override
+    public Collection<Media> lookup(SearchCondition condition) {
+        SearchOperator operator = condition.getOperator();
+        if (operator == null) {
+            return null;
+        }
+        String operatorName = operator.getName();
+        String literal;
+        if (field.equals(condition.getLeft()) && !SearchCondition.isFieldName(condition.getRight())) {
+            literal = condition.getRight();
+        } else if (field.equals(condition.getRight()) && !SearchCondition.isFieldName(condition.getLeft())) {
+            literal = condition.getLeft();
+            operatorName = flip(operatorName);
+        } else {
+            return null;
+        }
+
+        if ("=".equals(operatorName)) {
+            if (!supportsEquality) {
+                return null;
+            }
+            // "=" compares the printed values, so only the canonical representation of a number can match
+            int value;
+            try {
+                value = Integer.parseInt(literal);
+            } catch (NumberFormatException e) {
+                return Collections.emptyList();
+            }
+            return literal.equals(Integer.toString(value)) ? range(value, value) : Collections.emptyList();
+        }
+
+        // other operators, such as contains and find, compare the printed value
+        if (!isComparison(operatorName)) {
+            return null;
+        }
+        int value;
+        try {
+            value = SearchOperator.parseIntLiteral(literal);
+        } catch (IllegalArgumentException e) {
+            // the operator returns false if the value can't be parsed
+            return Collections.emptyList();
+        }
+        switch (operatorName) {
+            case "<":
+                return value == Integer.MIN_VALUE ? Collections.emptyList() : range(Integer.MIN_VALUE, value - 1);
+            case "<=":
+                return range(Integer.MIN_VALUE, value);
+            case ">":
+                return value == Integer.MAX_VALUE ? Collections.emptyList() : range(value + 1, Integer.MAX_VALUE);
+            case ">=":
+                return range(value, Integer.MAX_VALUE);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public boolean isExact(SearchCondition condition) {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "range index on " + field;
+    }
+
+    // returns true for the operators that compare the values as numbers
+    private static boolean isComparison(String operatorName) {
+        return "<".equals(operatorName) || "<=".equals(operatorName) || ">".equals(operatorName) || ">=".equals(operatorName);
+    }
+
+    // returns the operator to use if the operands are swapped
+    private static String flip(String operatorName) {
+        switch (operatorName) {
+            case "<":
+                return ">";
+            case "<=":
+                return ">=";
+            case ">":
+                return "<";
+            case ">=":
+                return "<=";
+            default:
+                return operatorName;
+        }
+    }
+
+    // index of the first key that is not less than the given key
+    private int lowerBound(int key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureSorted() {
+        if (sorted) {
+            return;
+        }
+        // sort the positions by key using a primitive sort. The position in the low bits keeps the sort stable.
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = (long) keys[i] << 32 | i;
+        }
+        Arrays.sort(packed);
+        int[] sortedKeys = new int[keys.length];
+        Media[] sortedItems = new Media[items.length];
+        for (int i = 0; i < size; i++) {
+            int position = (int) packed[i];
+            sortedKeys[i] = keys[position];
+            sortedItems[i] = items[position];
+        }
+        keys = sortedKeys;
+        items = sortedItems;
+        sorted = true;
+    }
+
+}
@@ -0,0 +1,64 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+
+import java.util.Collection;
+
+/**
+ * A secondary structure kept up to date by the media container, used to find the candidates for a search condition
+ * without testing every media item
+ */
+public interface MediaIndex {
+
+    void add(Media media);
+
+    /**
+     * Adds many items at once. Implementations may use multiple threads, and don't return before they're done.
+     * @param items the items, none of which were added before
+     */
+    default void addAll(Collection<Media> items) {
+        for (Media media : items) {
+            add(media);
+        }
+    }
+
+    void remove(Media media);
+
+    /**
+     * Removes many items at once. Implementations may use multiple threads, and don't return before they're done.
+     * @param items the items, all of which were added before
+     */
+    default void removeAll(Collection<Media> items) {
+        for (Media media : items) {
+            remove(media);
+        }
+    }
+
+    void clear();
+
+    /**
+     * Looks up the media items that can match the given condition
+     * @param condition the condition
+     * @return every media item that matches the condition, possibly more, or null if this index can't be used for the condition
+     */
+    Collection<Media> lookup(SearchCondition condition);
+
+    /**
+     * @param condition a condition for which lookup did not return null
+     * @return true if the items returned by lookup for the condition all match the condition
+     */
+    default boolean isExact(SearchCondition condition) {
+        return false;
+    }
+
+    /**
+     * @param condition a condition for which lookup did not return null
+     * @return true if lookup returns the items in the order they were added to the container, without computing them,
+     * such that scanning them is never worse than scanning the container
+     */
+    default boolean isInInsertionOrder(SearchCondition condition) {
+        return false;
+    }
+
+}
@@ -0,0 +1,72 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the exact title of media items to the items with that title, in the order that they were added
+ */
+public class TitleIndex implements MediaIndex {
+
+    private final Map<String, List<Media>> itemsByTitle = new HashMap<>();
+
+    @Override
+    public void add(Media media) {
+        itemsByTitle.computeIfAbsent(media.title(), title -> new ArrayList<>(1)).add(media);
+    }
+
+    @Override
+    public void remove(Media media) {
+        List<Media> items = itemsByTitle.get(media.title());
+        if (items != null && items.remove(media) && items.isEmpty()) {
+            itemsByTitle.remove(media.title());
+        }
+    }
+
+    @Override
+    public void clear() {
+        itemsByTitle.clear();
+    }
+
+    /**
+     * @param title the title
+     * @return An unmodifiable list of the items with exactly the given title
+     */
+    public List<Media> get(String title) {
+        List<Media> items = itemsByTitle.get(title);
+        return items == null ? Collections.emptyList() : Collections.unmodifiableList(items);
+    }
+
+    @Override
+    public Collection<Media> lookup(SearchCondition condition) {
+        if (!condition.hasOperator("=")) {
+            return null;
+        }
+        // the other side must be a literal for every type of media, else it's replaced with a field value
+        if ("title".equals(condition.getLeft()) && !SearchCondition.isFieldName(condition.getRight())) {
+            return get(condition.getRight());
+        }
+        if ("title".equals(condition.getRight()) && !SearchCondition.isFieldName(condition.getLeft())) {
+            return get(condition.getLeft());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isExact(SearchCondition condition) {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "title index";
+    }
+
+}
@@ -0,0 +1,254 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An inverted index from the tokens in string fields to the media items containing them.
+ * A token is a maximal sequence of letters and digits.
+ *
+ * <p> The index answers "contains" and "=" conditions with the items that contain every token of the literal.
+ * The first and last tokens of a "contains" literal can be parts of a token in the value, which are found by
+ * a prefix search, a suffix search or a scan of the distinct tokens.
+ */
+public class TokenIndex implements MediaIndex {
+
+    /**
+     * Splits the input into tokens
+     * @param input the input
+     * @return the tokens in the input, in order
+     */
+    public static List<String> tokenize(String input) {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < input.length(); i++) {
+            if (Character.isLetterOrDigit(input.charAt(i))) {
+                if (start == -1) {
+                    start = i;
+                }
+            } else if (start != -1) {
+                result.add(input.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start != -1) {
+            result.add(input.substring(start));
+        }
+        return result;
+    }
+
+    private final Map<String, FieldTokens> fields = new HashMap<>();
+
+    /**
+     * @param fieldNames the names of the string fields to index
+     */
+    public TokenIndex(String... fieldNames) {
+        for (String field : fieldNames) {
+            fields.put(field, new FieldTokens());
+        }
+    }
+
+    @Override
+    public void add(Media media) {
+        Map<String, Object> values = media.getFields();
+        for (Map.Entry<String, FieldTokens> entry : fields.entrySet()) {
+            if (values.containsKey(entry.getKey())) {
+                // null values are compared as "null" by the search operators
+                entry.getValue().add(String.valueOf(values.get(entry.getKey())), media);
+            }
+        }
+    }
+
+    @Override
+    public void addAll(Collection<Media> items) {
+        // the fields have separate postings, so they can be filled in parallel
+        fields.entrySet().parallelStream().forEach(entry -> {
+            for (Media media : items) {
+                Map<String, Object> values = media.getFields();
+                if (values.containsKey(entry.getKey())) {
+                    entry.getValue().add(String.valueOf(values.get(entry.getKey())), media);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void remove(Media media) {
+        Map<String, Object> values = media.getFields();
+        for (Map.Entry<String, FieldTokens> entry : fields.entrySet()) {
+            if (values.containsKey(entry.getKey())) {
+                entry.getValue().remove(String.valueOf(values.get(entry.getKey())), media);
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Media> items) {
+        fields.entrySet().parallelStream().forEach(entry -> {
+            for (Media media : items) {
+                Map<String, Object> values = media.getFields();
+                if (values.containsKey(entry.getKey())) {
+                    entry.getValue().remove(String.valueOf(values.get(entry.getKey())), media);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void clear() {
+        for (FieldTokens tokens : fields.values()) {
+            tokens.clear();
+        }
+    }
+
+    @Override
+    public Collection<Media> lookup(SearchCondition condition) {
+        String left = condition.getLeft();
+        String right = condition.getRight();
+        if (condition.hasOperator("contains")) {
+            FieldTokens tokens = fields.get(left);
+            if (tokens == null || SearchCondition.isFieldName(right) || canMatchWithoutField(condition, left, right)) {
+                return null;
+            }
+            return tokens.lookup(right, false);
+        }
+        if (condition.hasOperator("=")) {
+            if (fields.containsKey(left) && !SearchCondition.isFieldName(right)) {
+                return fields.get(left).lookup(right, true);
+            }
+            if (fields.containsKey(right) && !SearchCondition.isFieldName(left)) {
+                return fields.get(right).lookup(left, true);
+            }
+        }
+        return null;
+    }
+
+    // items that don't have the field compare the name of the field instead.
+    // if that matches, the index can't be used.
+    private static boolean canMatchWithoutField(SearchCondition condition, String field, String literal) {
+        return !"title".equals(field) && condition.getOperator().test(field, literal);
+    }
+
+    private static class FieldTokens {
+        private final NavigableMap<String, Set<Media>> postings = new TreeMap<>();
+        // the same postings, by reversed token, for suffix searches
+        private final NavigableMap<String, Set<Media>> reversedPostings = new TreeMap<>();
+
+        void add(String value, Media media) {
+            for (String token : tokenize(value)) {
+                Set<Media> items = postings.get(token);
+                if (items == null) {
+                    items = new HashSet<>();
+                    postings.put(token, items);
+                    reversedPostings.put(reverse(token), items);
+                }
+                items.add(media);
+            }
+        }
+
+        void remove(String value, Media media) {
+            for (String token : tokenize(value)) {
+                Set<Media> items = postings.get(token);
+                if (items != null && items.remove(media) && items.isEmpty()) {
+                    postings.remove(token);
+                    reversedPostings.remove(reverse(token));
+                }
+            }
+        }
+
+        void clear() {
+            postings.clear();
+            reversedPostings.clear();
+        }
+
+        Collection<Media> lookup(String literal, boolean exact) {
+            List<Set<Media>> candidateSets = new ArrayList<>();
+            int length = literal.length();
+            int start = -1;
+            for (int i = 0; i <= length; i++) {
+                if (i < length && Character.isLetterOrDigit(literal.charAt(i))) {
+                    if (start == -1) {
+                        start = i;
+                    }
+                    continue;
+                }
+                if (start == -1) {
+                    continue;
+                }
+                String token = literal.substring(start, i);
+                // a token is complete at a side if the literal has a separator there
+                boolean completeStart = exact || start > 0;
+                boolean completeEnd = exact || i < length;
+                candidateSets.add(find(token, completeStart, completeEnd));
+                start = -1;
+            }
+
+            if (candidateSets.isEmpty()) {
+                // nothing to look up
+                return null;
+            }
+            candidateSets.sort(Comparator.comparingInt(Set::size));
+            Set<Media> result = candidateSets.get(0);
+            if (candidateSets.size() > 1) {
+                result = new HashSet<>(result);
+                for (int i = 1; i < candidateSets.size() && !result.isEmpty(); i++) {
+                    result.retainAll(candidateSets.get(i));
+                }
+            }
+            return Collections.unmodifiableSet(result);
+        }
+
+        private Set<Media> find(String token, boolean completeStart, boolean completeEnd) {
+            if (completeStart && completeEnd) {
+                Set<Media> items = postings.get(token);
+                return items == null ? Collections.emptySet() : items;
+            }
+            if (completeStart) {
+                return unionOfPrefixed(postings, token);
+            }
+            if (completeEnd) {
+                return unionOfPrefixed(reversedPostings, reverse(token));
+            }
+            Set<Media> result = new HashSet<>();
+            for (Map.Entry<String, Set<Media>> entry : postings.entrySet()) {
+                if (entry.getKey().contains(token)) {
+                    result.addAll(entry.getValue());
+                }
+            }
+            return result;
+        }
+
+        private static Set<Media> unionOfPrefixed(NavigableMap<String, Set<Media>> map, String prefix) {
+            Set<Media> result = new HashSet<>();
+            for (Map.Entry<String, Set<Media>> entry : map.tailMap(prefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(prefix)) {
+                    break;
+                }
+                result.addAll(entry.getValue());
+            }
+            return result;
+        }
+
+        private static String reverse(String token) {
+            return new StringBuilder(token).reverse().toString();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "token index";
+    }
+
+}
@@ -0,0 +1,318 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An index from the trigrams (sequences of 3 characters) in string fields to the media items containing them.
+ *
+ * <p> It prefilters "find" and "matches" conditions: the literal substrings that any match of the regex must contain
+ * are extracted, and only the items that contain all of their trigrams are candidates.
+ * If the regex has no literal substring of at least 3 characters, the index is not used.
+ */
+public class TrigramIndex implements MediaIndex {
+
+    /**
+     * Extracts substrings that every match of the regex contains.
+     * The extraction is conservative: anything that isn't understood is skipped, and the result is empty if
+     * the regex uses alternation, flags, quoting or escapes other than character classes at the top level.
+     * @param regex the regex
+     * @return the literal substrings
+     */
+    public static List<String> requiredLiterals(String regex) {
+        List<String> result = new ArrayList<>();
+        if (regex.contains("(?") || regex.contains("\\Q")) {
+            // flags, such as case insensitivity, and quoting change the meaning of the characters
+            return result;
+        }
+
+        StringBuilder run = new StringBuilder();
+        int length = regex.length();
+        int i = 0;
+        while (i < length) {
+            char c = regex.charAt(i);
+            boolean literal;
+            char literalChar = c;
+            int next;
+            switch (c) {
+                case '\\':
+                    if (i + 1 >= length) {
+                        return Collections.emptyList();
+                    }
+                    literalChar = regex.charAt(i + 1);
+                    // the plain character classes aren't literals. other escaped letters and digits, such as
+                    // back references, \x41, \k<name> and \p{Lu}, may take arguments, so they aren't understood
+                    if (Character.isLetterOrDigit(literalChar) && "dDsSwWbB".indexOf(literalChar) < 0) {
+                        return Collections.emptyList();
+                    }
+                    literal = !Character.isLetterOrDigit(literalChar);
+                    next = i + 2;
+                    break;
+                case '[':
+                    literal = false;
+                    next = skipClass(regex, i);
+                    break;
+                case '(':
+                    literal = false;
+                    next = skipGroup(regex, i);
+                    break;
+                case '|':
+                    // alternatives at the top level
+                    return Collections.emptyList();
+                case '.':
+                case '^':
+                case '$':
+                    literal = false;
+                    next = i + 1;
+                    break;
+                default:
+                    literal = true;
+                    next = i + 1;
+                    break;
+            }
+            if (next < 0) {
+                return Collections.emptyList();
+            }
+
+            // apply a quantifier if there is one
+            boolean optional = false;
+            boolean repeated = false;
+            if (next < length) {
+                char quantifier = regex.charAt(next);
+                if (quantifier == '*' || quantifier == '?') {
+                    optional = true;
+                    next++;
+                } else if (quantifier == '+') {
+                    repeated = true;
+                    next++;
+                } else if (quantifier == '{') {
+                    int close = regex.indexOf('}', next);
+                    if (close < 0) {
+                        return Collections.emptyList();
+                    }
+                    String bounds = regex.substring(next + 1, close);
+                    int comma = bounds.indexOf(',');
+                    String minimum = comma < 0 ? bounds : bounds.substring(0, comma);
+                    optional = minimum.trim().equals("0");
+                    repeated = true;
+                    next = close + 1;
+                }
+                // lazy and possessive quantifiers
+                if ((optional || repeated) && next < length && (regex.charAt(next) == '?' || regex.charAt(next) == '+')) {
+                    next++;
+                }
+            }
+
+            if (literal && !optional) {
+                run.append(literalChar);
+            }
+            if (!literal || optional || repeated) {
+                flushRun(run, result);
+            }
+            i = next;
+        }
+        flushRun(run, result);
+        return result;
+    }
+
+    private static void flushRun(StringBuilder run, List<String> result) {
+        if (run.length() >= 3) {
+            result.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    // returns the index after the character class starting at the given index, or -1
+    private static int skipClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // a ] directly after the opening bracket (or negation) is a literal
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // returns the index after the group starting at the given index, or -1
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static long trigram(CharSequence input, int index) {
+        return (long) input.charAt(index) << 32 | (long) input.charAt(index + 1) << 16 | input.charAt(index + 2);
+    }
+
+    private final Map<String, Map<Long, Set<Media>>> fields = new HashMap<>();
+
+    /**
+     * @param fieldNames the names of the string fields to index
+     */
+    public TrigramIndex(String... fieldNames) {
+        for (String field : fieldNames) {
+            fields.put(field, new HashMap<>());
+        }
+    }
+
+    @Override
+    public void add(Media media) {
+        for (Map.Entry<String, Map<Long, Set<Media>>> entry : fields.entrySet()) {
+            add(entry.getKey(), entry.getValue(), media);
+        }
+    }
+
+    @Override
+    public void addAll(Collection<Media> items) {
+        // the fields have separate postings, so they can be filled in parallel
+        fields.entrySet().parallelStream().forEach(entry -> {
+            for (Media media : items) {
+                add(entry.getKey(), entry.getValue(), media);
+            }
+        });
+    }
+
+    private static void add(String field, Map<Long, Set<Media>> postings, Media media) {
+        Map<String, Object> values = media.getFields();
+        if (values.containsKey(field)) {
+            String value = String.valueOf(values.get(field));
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                postings.computeIfAbsent(trigram(value, i), key -> new HashSet<>()).add(media);
+            }
+        }
+    }
+
+    @Override
+    public void remove(Media media) {
+        for (Map.Entry<String, Map<Long, Set<Media>>> entry : fields.entrySet()) {
+            remove(entry.getKey(), entry.getValue(), media);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Media> items) {
+        fields.entrySet().parallelStream().forEach(entry -> {
+            for (Media media : items) {
+                remove(entry.getKey(), entry.getValue(), media);
+            }
+        });
+    }
+
+    private static void remove(String field, Map<Long, Set<Media>> postings, Media media) {
+        Map<String, Object> values = media.getFields();
+        if (values.containsKey(field)) {
+            String value = String.valueOf(values.get(field));
+            for (int i = 0; i + 3 <= value.length(); i++) {
+                long trigram = trigram(value, i);
+                Set<Media> items = postings.get(trigram);
+                if (items != null && items.remove(media) && items.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Map<Long, Set<Media>> postings : fields.values()) {
+            postings.clear();
+        }
+    }
+
+    @Override
+    public Collection<Media> lookup(SearchCondition condition) {
+        if (!condition.hasOperator("find") && !condition.hasOperator("matches")) {
+            return null;
+        }
+        String field = condition.getLeft();
+        String regex = condition.getRight();
+        Map<Long, Set<Media>> postings = fields.get(field);
+        if (postings == null || SearchCondition.isFieldName(regex)) {
+            return null;
+        }
+        // the operator trims the regex
+        regex = regex.trim();
+        try {
+            Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            // let the search report the error
+            return null;
+        }
+        List<String> literals = requiredLiterals(regex);
+        // items that don't have the field match the regex against the name of the field
+        if (literals.isEmpty() || !"title".equals(field) && condition.getOperator().test(field, condition.getRight())) {
+            return null;
+        }
+
+        List<Set<Media>> candidateSets = new ArrayList<>();
+        for (String literal : literals) {
+            for (int i = 0; i + 3 <= literal.length(); i++) {
+                Set<Media> items = postings.get(trigram(literal, i));
+                if (items == null) {
+                    return Collections.emptySet();
+                }
+                candidateSets.add(items);
+            }
+        }
+        candidateSets.sort(Comparator.comparingInt(Set::size));
+        Set<Media> result = new HashSet<>(candidateSets.get(0));
+        for (int i = 1; i < candidateSets.size() && !result.isEmpty(); i++) {
+            result.retainAll(candidateSets.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "trigram index";
+    }
+
+}
@@ -0,0 +1,77 @@
+package io.dico.mediacatalogue.index;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaSchema;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Finds the items of a type of media in the partition that the container keeps for that type,
+ * so that searches restricted to a type only test the items of that type
+ */
+public class TypeIndex implements MediaIndex {
+
+    private final Function<MediaSchema<?>, List<Media>> partitions;
+
+    /**
+     * @param partitions supplies the items of a type of media, as a list that isn't modified afterwards
+     */
+    public TypeIndex(Function<MediaSchema<?>, List<Media>> partitions) {
+        this.partitions = partitions;
+    }
+
+    // the container keeps the partitions up to date
+
+    @Override
+    public void add(Media media) {
+    }
+
+    @Override
+    public void remove(Media media) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    @Override
+    public Collection<Media> lookup(SearchCondition condition) {
+        if (!condition.hasOperator("=")) {
+            return null;
+        }
+        String typeName;
+        if ("type".equals(condition.getLeft()) && !SearchCondition.isFieldName(condition.getRight())) {
+            typeName = condition.getRight();
+        } else if ("type".equals(condition.getRight()) && !SearchCondition.isFieldName(condition.getLeft())) {
+            typeName = condition.getLeft();
+        } else {
+            return null;
+        }
+        for (MediaSchema<?> schema : MediaSchema.values()) {
+            if (schema.getTypeName().equals(typeName)) {
+                return partitions.apply(schema);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isExact(SearchCondition condition) {
+        return true;
+    }
+
+    @Override
+    public boolean isInInsertionOrder(SearchCondition condition) {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "type partition";
+    }
+
+}
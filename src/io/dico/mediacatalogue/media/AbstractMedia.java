@@ -1,29 +1,35 @@
 package io.dico.mediacatalogue.media;
 
-import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.function.BiConsumer;
 
+/**
+ * The base of the types of media. Items are immutable, so their hash code is computed when they're constructed,
+ * and compared before the fields when testing for equality.
+ */
 public abstract class AbstractMedia implements Media {
 
-    private Map<String, Object> fieldValues;
-    private String title;
-    private int rating;
-    private int releaseYear;
+    private final String title;
+    private final int rating;
+    private final int releaseYear;
+    private final int hash;
 
-    public AbstractMedia() {
+    public AbstractMedia(String title, int rating, int releaseYear) {
+        this(title, rating, releaseYear, 0);
     }
 
-    public AbstractMedia(String title, int rating, int releaseYear) {
-        this();
+    /**
+     * @param fieldsHash the hash code of the fields that subclasses compare in equals, in addition to the title
+     *                   and year of release
+     */
+    protected AbstractMedia(String title, int rating, int releaseYear, int fieldsHash) {
         this.title = title;
         this.rating = rating;
         this.releaseYear = releaseYear;
+        // equals compares the classes, so the type doesn't need to be part of the hash
+        this.hash = 31 * (31 * title.hashCode() + releaseYear) + fieldsHash;
     }
 
     @Override
@@ -41,27 +47,16 @@ public abstract class AbstractMedia implements Media {
         return releaseYear;
     }
 
-    protected abstract void setFieldValues(BiConsumer<String, Object> fieldConsumer);
-
-    protected void resetFieldValues() {
-        fieldValues = new LinkedHashMap<>();
-        fieldValues.put("type", type());
-        fieldValues.put("title", title);
-        fieldValues.put("year of release", releaseYear);
-        setFieldValues(fieldValues::put);
-        fieldValues.put("rating", rating);
-        fieldValues = Collections.unmodifiableMap(fieldValues);
-    }
-
+    /**
+     * @return A view of the field values of this item, read through the fields of its schema
+     */
     @Override
     public Map<String, Object> getFields() {
-        return fieldValues;
+        return new FieldValues(this);
     }
 
     protected abstract void writeFields(JsonWriter writer) throws IOException;
 
-    protected abstract void readField(String name, JsonReader reader) throws IOException;
-
     @Override
     public final void writeTo(JsonWriter writer) throws IOException {
         writer.beginObject();
@@ -72,30 +67,6 @@ public abstract class AbstractMedia implements Media {
         writer.endObject();
     }
 
-    @Override
-    public final void readFrom(JsonReader reader) throws IOException {
-        reader.beginObject();
-        while (reader.hasNext()) {
-            final String key = reader.nextName();
-            switch (key) {
-                case "title":
-                    title = reader.nextString();
-                    break;
-                case "rating":
-                    rating = reader.nextInt();
-                    break;
-                case "year of release":
-                    releaseYear = reader.nextInt();
-                    break;
-                default:
-                    readField(key, reader);
-                    break;
-            }
-        }
-        reader.endObject();
-        resetFieldValues();
-    }
-
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -103,7 +74,7 @@ public abstract class AbstractMedia implements Media {
         sb.append(type());
         sb.append(')').append(' ');
         boolean first = true;
-        for (Map.Entry<String, Object> entry : fieldValues.entrySet()) {
+        for (Map.Entry<String, Object> entry : getFields().entrySet()) {
             if (first) {
                 first = false;
             } else {
@@ -121,17 +92,16 @@ public abstract class AbstractMedia implements Media {
 
         AbstractMedia that = (AbstractMedia) o;
 
+        // items with different hash codes differ, which is found without comparing any strings
+        if (hashCode() != that.hashCode()) return false;
         if (releaseYear != that.releaseYear) return false;
         if (!type().equals(that.type())) return false;
         return title.equals(that.title);
     }
 
     @Override
-    public int hashCode() {
-        int result = type().hashCode();
-        result = 31 * result + title.hashCode();
-        result = 31 * result + releaseYear;
-        return result;
+    public final int hashCode() {
+        return hash;
     }
 
 }
@@ -1,27 +1,21 @@
 package io.dico.mediacatalogue.media;
 
-import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import io.dico.mediacatalogue.util.Duration;
 
 import java.io.IOException;
-import java.util.function.BiConsumer;
 
 public class AudioTrack extends AbstractMedia {
 
-    private Duration duration;
-    private String artist;
-    private String recordLabel;
-
-    public AudioTrack() {
-    }
+    private final Duration duration;
+    private final String artist;
+    private final String recordLabel;
 
     public AudioTrack(String title, int rating, int releaseYear, Duration duration, String artist, String recordLabel) {
         super(title, rating, releaseYear);
         this.duration = duration;
         this.artist = artist;
         this.recordLabel = recordLabel;
-        resetFieldValues();
     }
 
     @Override
@@ -29,6 +23,11 @@ public class AudioTrack extends AbstractMedia {
         return "audio track";
     }
 
+    @Override
+    public MediaSchema<AudioTrack> schema() {
+        return MediaSchema.AUDIO_TRACK;
+    }
+
     public Duration duration() {
         return duration;
     }
@@ -41,35 +40,10 @@ public class AudioTrack extends AbstractMedia {
         return recordLabel;
     }
 
-    @Override
-    protected void setFieldValues(BiConsumer<String, Object> fieldConsumer) {
-        fieldConsumer.accept("duration", duration);
-        fieldConsumer.accept("artist", artist);
-        fieldConsumer.accept("record label", recordLabel);
-    }
-
     @Override
     protected void writeFields(JsonWriter writer) throws IOException {
         writer.name("duration").value(duration.intValue());
         writer.name("artist").value(artist);
         writer.name("record label").value(recordLabel);
     }
-
-    @Override
-    protected void readField(String name, JsonReader reader) throws IOException {
-        switch (name) {
-            case "duration":
-                duration = new Duration(Math.abs(reader.nextInt()), false);
-                break;
-            case "artist":
-                artist = reader.nextString();
-                break;
-            case "recordLabel":
-                recordLabel = reader.nextString();
-                break;
-            default:
-                reader.skipValue();
-                break;
-        }
-    }
 }
@@ -0,0 +1,70 @@
+package io.dico.mediacatalogue.media;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * An unmodifiable view of the field values of a media item, ordered like the fields of its schema.
+ * Values are read from the item whenever they're requested, so no map is kept for every item.
+ */
+final class FieldValues extends AbstractMap<String, Object> {
+
+    private final Media media;
+    private final MediaSchema<?> schema;
+
+    FieldValues(Media media) {
+        this.media = media;
+        this.schema = media.schema();
+    }
+
+    @Override
+    public Object get(Object key) {
+        MediaField<?> field = key instanceof String ? schema.getField((String) key) : null;
+        return field == null ? null : field.get(media);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && schema.getField((String) key) != null;
+    }
+
+    @Override
+    public int size() {
+        return schema.getFields().size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<? extends MediaField<?>> fields = schema.getFields().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return fields.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        MediaField<?> field = fields.next();
+                        return new SimpleImmutableEntry<>(field.getName(), field.get(media));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return schema.getFields().size();
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return schema.getFieldNames();
+    }
+
+}
@@ -1,27 +1,21 @@
 package io.dico.mediacatalogue.media;
 
-import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import io.dico.mediacatalogue.util.Duration;
 
 import java.io.IOException;
-import java.util.function.BiConsumer;
 
 public class Film extends AbstractMedia {
 
-    private Duration duration;
-    private String studio;
-    private String director;
-
-    public Film() {
-    }
+    private final Duration duration;
+    private final String studio;
+    private final String director;
 
     public Film(String title, int rating, int releaseYear, Duration duration, String studio, String director) {
-        super(title, rating, releaseYear);
+        super(title, rating, releaseYear, hashFields(duration, studio, director));
         this.duration = duration;
         this.studio = studio;
         this.director = director;
-        resetFieldValues();
     }
 
     @Override
@@ -29,6 +23,11 @@ public class Film extends AbstractMedia {
         return "film";
     }
 
+    @Override
+    public MediaSchema<Film> schema() {
+        return MediaSchema.FILM;
+    }
+
     public Duration duration() {
         return duration;
     }
@@ -41,13 +40,6 @@ public class Film extends AbstractMedia {
         return director;
     }
 
-    @Override
-    protected void setFieldValues(BiConsumer<String, Object> fieldConsumer) {
-        fieldConsumer.accept("duration", duration);
-        fieldConsumer.accept("studio", studio);
-        fieldConsumer.accept("director", director);
-    }
-
     @Override
     protected void writeFields(JsonWriter writer) throws IOException {
         writer.name("duration").value(duration.intValue());
@@ -55,24 +47,6 @@ public class Film extends AbstractMedia {
         writer.name("director").value(director);
     }
 
-    @Override
-    protected void readField(String name, JsonReader reader) throws IOException {
-        switch (name) {
-            case "duration":
-                duration = new Duration(reader.nextInt(), true);
-                break;
-            case "studio":
-                studio = reader.nextString();
-                break;
-            case "director":
-                director = reader.nextString();
-                break;
-            default:
-                reader.skipValue();
-                break;
-        }
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -83,10 +57,9 @@ public class Film extends AbstractMedia {
         return duration.equals(film.duration) && studio.equals(film.studio) && director.equals(film.director);
     }
 
-    @Override
-    public int hashCode() {
-        int result = super.hashCode();
-        result = 31 * result + duration.intValue();
+    // the hash code of the fields compared in equals, in addition to those compared by AbstractMedia
+    private static int hashFields(Duration duration, String studio, String director) {
+        int result = duration.intValue();
         result = 31 * result + studio.hashCode();
         result = 31 * result + director.hashCode();
         return result;
@@ -1,13 +1,14 @@
 package io.dico.mediacatalogue.media;
 
-import io.dico.mediacatalogue.util.JsonSerializable;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
  * An interface for any type of work to implement
  */
-public interface Media extends JsonSerializable {
+public interface Media {
 /*
     /**
      * Returns an id associated with this item
@@ -23,6 +24,11 @@ public interface Media extends JsonSerializable {
      */
     String type();
 
+    /**
+     * @return The schema describing the fields of this type of work
+     */
+    MediaSchema<?> schema();
+
     /**
      * @return The title of this work
      */
@@ -47,6 +53,13 @@ public interface Media extends JsonSerializable {
     void set(String field, Object value);
 */
     
+    /**
+     * Writes this work to json. Works are read through {@link MediaSchema#read}, as they can't be changed.
+     * @param writer the writer
+     * @throws IOException if the writer fails
+     */
+    void writeTo(JsonWriter writer) throws IOException;
+
     /**
      * @return An ordered map of field name to field instance for this media item
      */
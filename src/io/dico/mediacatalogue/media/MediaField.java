@@ -0,0 +1,87 @@
+package io.dico.mediacatalogue.media;
+
+import io.dico.mediacatalogue.util.Duration;
+
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * A field of a type of media, with an accessor for its value
+ *
+ * @param <T> The type of media
+ */
+public final class MediaField<T extends Media> {
+
+    /**
+     * The kinds of values that fields have
+     */
+    public enum Kind {
+        STRING,
+        INT,
+        DURATION
+    }
+
+    static <T extends Media> MediaField<T> ofString(String name, Function<? super T, String> getter) {
+        return new MediaField<>(name, Kind.STRING, getter, null);
+    }
+
+    static <T extends Media> MediaField<T> ofInt(String name, ToIntFunction<? super T> getter) {
+        return new MediaField<>(name, Kind.INT, getter::applyAsInt, getter);
+    }
+
+    static <T extends Media> MediaField<T> ofDuration(String name, Function<? super T, Duration> getter) {
+        return new MediaField<>(name, Kind.DURATION, getter, null);
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final Function<? super T, ?> getter;
+    private final ToIntFunction<? super T> intGetter;
+
+    private MediaField(String name, Kind kind, Function<? super T, ?> getter, ToIntFunction<? super T> intGetter) {
+        this.name = name;
+        this.kind = kind;
+        this.getter = getter;
+        this.intGetter = intGetter;
+    }
+
+    /**
+     * @return The name of this field, as displayed in tables and used in search conditions
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @param media a media item of the type of this field
+     * @return The value of this field for the media item
+     */
+    @SuppressWarnings("unchecked")
+    public Object get(Media media) {
+        return getter.apply((T) media);
+    }
+
+    /**
+     * Reads the value of an int field without boxing it
+     * @param media a media item of the type of this field
+     * @return The value of this field for the media item
+     * @throws UnsupportedOperationException if this field is not of the int kind
+     */
+    @SuppressWarnings("unchecked")
+    public int getInt(Media media) {
+        if (intGetter == null) {
+            throw new UnsupportedOperationException(name + " is not an int field");
+        }
+        return intGetter.applyAsInt((T) media);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,247 @@
+package io.dico.mediacatalogue.media;
+
+import com.google.gson.stream.JsonReader;
+import io.dico.mediacatalogue.util.Duration;
+import io.dico.mediacatalogue.util.StringDictionary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Describes the fields of a type of media, in the order they're displayed.
+ * There is one schema for each type of media, shared by all of its items.
+ *
+ * @param <T> The type of media
+ */
+public final class MediaSchema<T extends Media> {
+
+    public static final MediaSchema<Film> FILM;
+    public static final MediaSchema<AudioTrack> AUDIO_TRACK;
+    public static final MediaSchema<TelevisionProgramme> TELEVISION_PROGRAMME;
+    private static final List<MediaSchema<?>> values;
+
+    /**
+     * @return The schemas of all types of media, ordered by their ordinal
+     */
+    public static List<MediaSchema<?>> values() {
+        return values;
+    }
+
+    /**
+     * @param type the class of a type of media
+     * @return The schema of that type of media, or null if there is none
+     */
+    public static MediaSchema<?> of(Class<?> type) {
+        for (MediaSchema<?> schema : values) {
+            if (schema.type == type) {
+                return schema;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param arrayName the name of an array in a catalogue file
+     * @return The schema of the type of media whose items that array holds, or null if there is none
+     */
+    public static MediaSchema<?> ofArrayName(String arrayName) {
+        for (MediaSchema<?> schema : values) {
+            if (schema.arrayName.equals(arrayName)) {
+                return schema;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name the input
+     * @return true if the input is the name of a field of at least one type of media
+     */
+    public static boolean isFieldName(String name) {
+        for (MediaSchema<?> schema : values) {
+            if (schema.fieldsByName.containsKey(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // constructs an item from the values of its fields, in the order of the schema
+    private interface Factory<T> {
+        T create(Object[] values);
+    }
+
+    private final int ordinal;
+    private final Class<T> type;
+    private final String typeName;
+    private final String arrayName;
+    private final Factory<T> factory;
+    private final List<MediaField<T>> fields;
+    private final Map<String, MediaField<T>> fieldsByName;
+    // the position of each field by its name in json
+    private final Map<String, Integer> positionsByJsonName = new HashMap<>();
+
+    @SafeVarargs
+    private MediaSchema(int ordinal, Class<T> type, String typeName, String arrayName, Factory<T> factory, MediaField<T>... specificFields) {
+        this.ordinal = ordinal;
+        this.type = type;
+        this.typeName = typeName;
+        this.arrayName = arrayName;
+        this.factory = factory;
+
+        List<MediaField<T>> fields = new ArrayList<>();
+        fields.add(MediaField.ofString("type", Media::type));
+        fields.add(MediaField.ofString("title", Media::title));
+        fields.add(MediaField.ofInt("year of release", Media::releaseYear));
+        for (MediaField<T> field : specificFields) {
+            fields.add(field);
+        }
+        fields.add(MediaField.ofInt("rating", Media::rating));
+        this.fields = Collections.unmodifiableList(fields);
+
+        Map<String, MediaField<T>> fieldsByName = new LinkedHashMap<>();
+        for (MediaField<T> field : fields) {
+            fieldsByName.put(field.getName(), field);
+        }
+        this.fieldsByName = Collections.unmodifiableMap(fieldsByName);
+
+        // the type of an item is implied by the array that holds it
+        for (int i = 1; i < fields.size(); i++) {
+            positionsByJsonName.put(fields.get(i).getName(), i);
+        }
+    }
+
+    /**
+     * @return The position of this schema in {@link #values()}
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @return The string returned by {@link Media#type()} for this type of media
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * @return The name of the array in a catalogue file that holds the items of this type of media
+     */
+    public String getArrayName() {
+        return arrayName;
+    }
+
+    /**
+     * @return The fields of this type of media, in the order they're displayed
+     */
+    public List<MediaField<T>> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return The names of the fields of this type of media, in the order they're displayed
+     */
+    public Set<String> getFieldNames() {
+        return fieldsByName.keySet();
+    }
+
+    /**
+     * @param name the name of the field
+     * @return The field with the given name, or null if this type of media doesn't have it
+     */
+    public MediaField<T> getField(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * Constructs an item from the values of its fields. The value of the type is ignored.
+     * @param values the values in the order of {@link #getFields()}: strings, and integers for ints and
+     *               for durations in seconds. A missing int is 0, and a missing duration is none.
+     * @return The item
+     */
+    public T create(Object[] values) {
+        return factory.create(values);
+    }
+
+    /**
+     * Reads an item from json. Titles are rarely repeated, so only the fields specific to the type are shared.
+     * @param reader the reader, positioned at the object of the item
+     * @param strings the dictionary through which strings are shared, or null
+     * @return The item
+     * @throws IOException if the reader fails
+     */
+    public T read(JsonReader reader, StringDictionary strings) throws IOException {
+        Object[] values = new Object[fields.size()];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            Integer position = positionsByJsonName.get(reader.nextName());
+            if (position == null) {
+                reader.skipValue();
+                continue;
+            }
+            switch (fields.get(position).getKind()) {
+                case STRING:
+                    String value = reader.nextString();
+                    values[position] = strings == null || position == 1 ? value : strings.intern(value);
+                    break;
+                case INT:
+                case DURATION:
+                    values[position] = reader.nextInt();
+                    break;
+            }
+        }
+        reader.endObject();
+        return factory.create(values);
+    }
+
+    @Override
+    public String toString() {
+        return typeName;
+    }
+
+    private static int intValue(Object value) {
+        return value == null ? 0 : (Integer) value;
+    }
+
+    private static Duration duration(Object value, boolean parsedMinutes) {
+        return value == null ? null : new Duration(Math.abs((Integer) value), parsedMinutes);
+    }
+
+    static {
+        FILM = new MediaSchema<>(0, Film.class, "film", "films",
+                values -> new Film((String) values[1], intValue(values[6]), intValue(values[2]),
+                        duration(values[3], true), (String) values[4], (String) values[5]),
+                MediaField.ofDuration("duration", Film::duration),
+                MediaField.ofString("studio", Film::studio),
+                MediaField.ofString("director", Film::getDirector));
+        AUDIO_TRACK = new MediaSchema<>(1, AudioTrack.class, "audio track", "audio tracks",
+                values -> new AudioTrack((String) values[1], intValue(values[6]), intValue(values[2]),
+                        duration(values[3], false), (String) values[4], (String) values[5]),
+                MediaField.ofDuration("duration", AudioTrack::duration),
+                MediaField.ofString("artist", AudioTrack::artist),
+                MediaField.ofString("record label", AudioTrack::recordLabel));
+        TELEVISION_PROGRAMME = new MediaSchema<>(2, TelevisionProgramme.class, "tv programme", "tv programmes",
+                values -> new TelevisionProgramme((String) values[1], intValue(values[7]), intValue(values[2]),
+                        (String) values[3], (String) values[4], (String) values[5], (String) values[6]),
+                MediaField.ofString("series", TelevisionProgramme::series),
+                MediaField.ofString("episode", TelevisionProgramme::episode),
+                MediaField.ofString("studio", TelevisionProgramme::studio),
+                MediaField.ofString("channel", TelevisionProgramme::channel));
+        // older catalogues name the record label of audio tracks like this
+        AUDIO_TRACK.positionsByJsonName.put("recordLabel", AUDIO_TRACK.fields.indexOf(AUDIO_TRACK.getField("record label")));
+        values = Collections.unmodifiableList(Arrays.asList(FILM, AUDIO_TRACK, TELEVISION_PROGRAMME));
+    }
+
+}
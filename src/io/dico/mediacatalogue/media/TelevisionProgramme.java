@@ -1,20 +1,15 @@
 package io.dico.mediacatalogue.media;
 
-import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
 import java.io.IOException;
-import java.util.function.BiConsumer;
 
 public class TelevisionProgramme extends AbstractMedia {
 
-    private String series;
-    private String episode;
-    private String studio;
-    private String channel;
-
-    public TelevisionProgramme() {
-    }
+    private final String series;
+    private final String episode;
+    private final String studio;
+    private final String channel;
 
     public TelevisionProgramme(String title, int rating, int releaseYear, String series, String episode, String studio, String channel) {
         super(title, rating, releaseYear);
@@ -22,7 +17,6 @@ public class TelevisionProgramme extends AbstractMedia {
         this.episode = episode;
         this.studio = studio;
         this.channel = channel;
-        resetFieldValues();
     }
 
     @Override
@@ -30,6 +24,11 @@ public class TelevisionProgramme extends AbstractMedia {
         return "tv programme";
     }
 
+    @Override
+    public MediaSchema<TelevisionProgramme> schema() {
+        return MediaSchema.TELEVISION_PROGRAMME;
+    }
+
     public String series() {
         return series;
     }
@@ -46,14 +45,6 @@ public class TelevisionProgramme extends AbstractMedia {
         return channel;
     }
 
-    @Override
-    protected void setFieldValues(BiConsumer<String, Object> fieldConsumer) {
-        fieldConsumer.accept("series", series);
-        fieldConsumer.accept("episode", episode);
-        fieldConsumer.accept("studio", studio);
-        fieldConsumer.accept("channel", channel);
-    }
-
     @Override
     protected void writeFields(JsonWriter writer) throws IOException {
         writer.name("series").value(series);
@@ -61,25 +52,4 @@ public class TelevisionProgramme extends AbstractMedia {
         writer.name("studio").value(studio);
         writer.name("channel").value(channel);
     }
-
-    @Override
-    protected void readField(String name, JsonReader reader) throws IOException {
-        switch (name) {
-            case "series":
-                series = reader.nextString();
-                break;
-            case "episode":
-                episode = reader.nextString();
-                break;
-            case "studio":
-                studio = reader.nextString();
-                break;
-            case "channel":
-                channel = reader.nextString();
-                break;
-            default:
-                reader.skipValue();
-                break;
-        }
-    }
 }
@@ -3,6 +3,7 @@ package io.dico.mediacatalogue.media.builder;
 import io.dico.mediacatalogue.media.Media;
 import io.dico.mediacatalogue.util.ConsoleOperator;
 import io.dico.mediacatalogue.util.Duration;
+import io.dico.mediacatalogue.util.StringDictionary;
 
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -17,6 +18,7 @@ public abstract class AbstractMediaBuilder<T extends Media> implements MediaBuil
 
     protected final ConsoleOperator console;
     protected Map<String, String> defaults;
+    private StringDictionary strings;
     private int skipCount = 0;
 
     public AbstractMediaBuilder(ConsoleOperator console) {
@@ -35,6 +37,14 @@ public abstract class AbstractMediaBuilder<T extends Media> implements MediaBuil
     
     protected abstract void writeDefaultInputs(BiConsumer<String, String> writer);
 
+    /**
+     * @param strings the dictionary of the catalogue, through which strings of the items built are shared,
+     *                or null to not share them
+     */
+    public void setDictionary(StringDictionary strings) {
+        this.strings = strings;
+    }
+
     protected void resetSkipCount() {
         skipCount = 0;
     }
@@ -84,6 +94,17 @@ public abstract class AbstractMediaBuilder<T extends Media> implements MediaBuil
         return result;
     }
 
+    /**
+     * Requests a value for a field that is often repeated, such as a studio,
+     * and shares its instance through the dictionary
+     * @param fieldName the field
+     * @return The input, or the default value if skipped
+     */
+    protected String requestSharedField(String fieldName) {
+        String result = requestField(fieldName);
+        return strings == null ? result : strings.intern(result);
+    }
+
     /**
      * Parses an integer from input using Integer.parseInt
      * @param input the input
@@ -32,10 +32,10 @@ public class AudioTrackBuilder extends AbstractMediaBuilder<AudioTrack> {
     @Override
     public AudioTrack build() {
         String title = requestTitle();
-        String artist = requestField("artist");
+        String artist = requestSharedField("artist");
         int releaseYear = requestReleaseYear();
         Duration duration = requestDuration(false);
-        String recordLabel = requestField("record label");
+        String recordLabel = requestSharedField("record label");
         int rating = requestStarRating();
         resetSkipCount();
         return new AudioTrack(title, rating, releaseYear, duration, artist, recordLabel);
@@ -34,8 +34,8 @@ public class FilmBuilder extends AbstractMediaBuilder<Film> {
         String title = requestTitle();
         Duration duration = requestDuration(true);
         int releaseYear = requestReleaseYear();
-        String studio = requestField("studio");
-        String director = requestField("director");
+        String studio = requestSharedField("studio");
+        String director = requestSharedField("director");
         int rating = requestStarRating();
 
         resetSkipCount();
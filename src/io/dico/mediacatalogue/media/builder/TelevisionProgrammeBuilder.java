@@ -32,11 +32,11 @@ public class TelevisionProgrammeBuilder extends AbstractMediaBuilder<TelevisionP
     @Override
     public TelevisionProgramme build() {
         String title = requestTitle();
-        String series = requestField("series");
-        String episode = requestField("episode");
+        String series = requestSharedField("series");
+        String episode = requestSharedField("episode");
         int releaseYear = requestReleaseYear();
-        String studio = requestField("studio");
-        String channel = requestField("channel");
+        String studio = requestSharedField("studio");
+        String channel = requestSharedField("channel");
         int rating = requestStarRating();
 
         resetSkipCount();
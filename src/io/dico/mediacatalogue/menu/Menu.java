@@ -3,11 +3,13 @@ package io.dico.mediacatalogue.menu;
 import java.util.Iterator;
 import java.util.NavigableSet;
 import java.util.TreeSet;
+import java.util.function.Supplier;
 
 public class Menu {
 
     private final String header;
     private final NavigableSet<MenuItem> items = new TreeSet<>();
+    private Supplier<String> status;
     
     /**
      * A menu takes care of showing a menu to the console, taking an action from the list and executing it.
@@ -17,6 +19,15 @@ public class Menu {
         this.header = header;
     }
 
+    /**
+     * @param status supplies a line displayed below the header, or null if there is nothing to display
+     * @return this
+     */
+    public Menu withStatus(Supplier<String> status) {
+        this.status = status;
+        return this;
+    }
+
     public MenuItem asItem(String name) {
         return new MenuItem(name) {
             @Override
@@ -83,6 +94,10 @@ public class Menu {
 
     public String generateMenu() {
         StringBuilder sb = new StringBuilder(header);
+        String line = status == null ? null : status.get();
+        if (line != null) {
+            sb.append('\n').append(line);
+        }
         for (MenuItem item : items) {
             sb.append('\n').append(item.getIndex() + 1).append(": ").append(item.getName());
         }
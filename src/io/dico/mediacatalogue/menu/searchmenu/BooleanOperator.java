@@ -0,0 +1,48 @@
+package io.dico.mediacatalogue.menu.searchmenu;
+
+/**
+ * The operators that combine search conditions, ordered from the weakest binding to the strongest.
+ * Conjunction binds stronger than disjunction, which binds stronger than the implications.
+ */
+public enum BooleanOperator {
+    IMPLIES("<implies>", 1),
+    REVERSE_IMPLIES("<reverse_implies>", 1),
+    OR("|", 2),
+    AND("&", 3);
+
+    private final String symbol;
+    private final int precedence;
+
+    BooleanOperator(String symbol, int precedence) {
+        this.symbol = symbol;
+        this.precedence = precedence;
+    }
+
+    /**
+     * @return The symbol that the user types for this operator
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getPrecedence() {
+        return precedence;
+    }
+
+    /**
+     * @return true if a chain of this operator can be evaluated in any order
+     */
+    public boolean isAssociative() {
+        return this == AND || this == OR;
+    }
+
+    public static BooleanOperator fromSymbol(String symbol) {
+        for (BooleanOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+}
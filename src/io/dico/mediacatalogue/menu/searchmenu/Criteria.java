@@ -1,10 +1,9 @@
 package io.dico.mediacatalogue.menu.searchmenu;
 
-import io.dico.booleanformulaparser.BooleanFormula;
-import io.dico.booleanformulaparser.IllegalFormulaException;
 import io.dico.mediacatalogue.media.Media;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -13,21 +12,16 @@ import java.util.regex.PatternSyntaxException;
 
 public class Criteria implements Predicate<Media> {
     
-    private static final String variableChars;
     private static final Map<String, SearchOperator> searchOperators;
-    private static final Map<String, Character> booleanFormulaOperators;
     
     public static Map<String, SearchOperator> getSearchOperators() {
         return searchOperators;
     }
     
-    public static Map<String, Character> getBooleanFormulaOperators() {
-        return booleanFormulaOperators;
-    }
-    
     public static Criteria parse(String inputString) {
-        List<SearchCondition> conditions = new LinkedList<>();
-        StringBuilder formula = new StringBuilder();
+        List<SearchCondition> conditions = new ArrayList<>();
+        List<Expression> operands = new ArrayList<>();
+        List<BooleanOperator> operators = new ArrayList<>();
         
         String[] inputSplit = splitOnSpaceUnlessQuoted(inputString);
         if ((inputSplit.length - 3) % 4 != 0) {
@@ -45,11 +39,11 @@ public class Criteria implements Predicate<Media> {
             if (operatorNext) {
                 // parse an operator
                 String input = inputSplit[index];
-                Character operator = booleanFormulaOperators.get(input.toLowerCase());
+                BooleanOperator operator = BooleanOperator.fromSymbol(input.toLowerCase());
                 if (operator == null) {
                     throw new IllegalArgumentException("\"" + input + "\" is not a boolean operator");
                 }
-                formula.append(operator);
+                operators.add(operator);
                 index++;
                 operatorNext = false;
                 continue;
@@ -57,30 +51,21 @@ public class Criteria implements Predicate<Media> {
             
             // parse a condition
             String searchOperator = inputSplit[index + 1];
-            if (searchOperator.startsWith("!")) {
+            boolean negated = searchOperator.startsWith("!");
+            if (negated) {
                 inputSplit[index + 1] = searchOperator.substring(1);
-                formula.append(booleanFormulaOperators.get("!"));
             }
             
             String[] conditionInput = Arrays.copyOfRange(inputSplit, index, index + 3);
-            
-            char variableRepresentationChar = variableChars.charAt(conditions.size());
-            formula.append(variableRepresentationChar);
             SearchCondition newCondition = parseCondition(conditionInput);
             conditions.add(newCondition);
+            operands.add(new Expression.Condition(newCondition, negated));
             
             operatorNext = true;
             index += 3;
         }
         
-        BooleanFormula booleanFormula;
-        try {
-            booleanFormula = new BooleanFormula(formula.toString());
-        } catch (IllegalFormulaException e) {
-            throw new IllegalArgumentException("That boolean formula is invalid");
-        }
-
-        return new Criteria(conditions, booleanFormula);
+        return new Criteria(conditions, Expression.build(operands, operators));
     }
     
     private static String[] splitOnSpaceUnlessQuoted(String input) {
@@ -124,29 +109,28 @@ public class Criteria implements Predicate<Media> {
     }
     
     private final List<SearchCondition> conditions;
-    private final BooleanFormula booleanFormula;
+    private final Expression expression;
     
-    public Criteria(List<SearchCondition> conditions, BooleanFormula booleanFormula) {
+    /**
+     * @param conditions the search conditions, in the order they were entered
+     * @param expression the expression combining the conditions, which is compiled when it's constructed
+     */
+    public Criteria(List<SearchCondition> conditions, Expression expression) {
         this.conditions = conditions;
-        this.booleanFormula = booleanFormula;
+        this.expression = expression;
     }
     
     public List<SearchCondition> getConditions() {
         return conditions;
     }
     
-    public BooleanFormula getBooleanFormula() {
-        return booleanFormula;
+    public Expression getExpression() {
+        return expression;
     }
     
     @Override
     public boolean test(Media media) {
-        // pass the test results from the conditions to the formula
-        boolean[] inputs = new boolean[conditions.size()];
-        for (int i = 0; i < inputs.length; i++) {
-            inputs[i] = conditions.get(i).test(media);
-        }
-        return booleanFormula.evaluateFor(inputs);
+        return expression.test(media);
     }
     
     // parse an input string to a search condition
@@ -167,33 +151,21 @@ public class Criteria implements Predicate<Media> {
             throw new IllegalArgumentException("Operator not found: " + operatorInput);
         }
         
-        return SearchCondition.withPredicate(left, right, operator);
+        return SearchCondition.withOperator(left, right, operator);
     }
     
     static {
-        // these characters are place holders for 'true' and 'false' in the boolean formula library.
-        // as a result, the amount of search conditions is limited to 26.
-        variableChars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        
-        // The boolean formula library uses mathematically correct characters, which you won't be able to find on your keyboard most of the time
-        // I decided to map some other, more accessible sequences.
-        Map<String, Character> booleanFormulaOperatorMap = new HashMap<>();
-        booleanFormulaOperatorMap.put("<implies>", '→');
-        booleanFormulaOperatorMap.put("<reverse_implies>", '←');
-        booleanFormulaOperatorMap.put("&", '^');
-        booleanFormulaOperatorMap.put("|", 'v');
-        booleanFormulaOperatorMap.put("!", '¬');
-        booleanFormulaOperators = Collections.unmodifiableMap(booleanFormulaOperatorMap);
-        
         // a function used in the next piece of code. It caches the previous pattern, so it's not compiled many times
         // in the same search operation. Not the best implementation, but it speeds it up significantly.
+        // searches can be parallel, so the cached pattern is read once and published through a volatile field.
         Function<String, Pattern> patternParser = new Function<String, Pattern>() {
-            private Pattern previousPattern;
+            private volatile Pattern previousPattern;
             
             @Override
             public Pattern apply(String input) {
-                if (previousPattern != null && previousPattern.pattern().equals(input)) {
-                    return previousPattern;
+                Pattern previous = previousPattern;
+                if (previous != null && previous.pattern().equals(input)) {
+                    return previous;
                 }
                 try {
                     return previousPattern = Pattern.compile(input);
@@ -205,21 +177,22 @@ public class Criteria implements Predicate<Media> {
         
         // the search operators.
         Map<String, SearchOperator> operatorMap = new HashMap<>();
-        operatorMap.put("=", SearchOperator.withStringPredicate("tests if the values are equal", String::equals));
-        operatorMap.put("contains", SearchOperator.withStringPredicate("tests if the first value contains the second", String::contains));
+        Consumer<SearchOperator> register = operator -> operatorMap.put(operator.getName(), operator);
+        register.accept(SearchOperator.withStringPredicate("=", "tests if the values are equal", String::equals));
+        register.accept(SearchOperator.withStringPredicate("contains", "tests if the first value contains the second", String::contains));
         
-        operatorMap.put(">", SearchOperator.withIntPredicate("tests if the first value is greater than the second", (left, right) -> left > right));
-        operatorMap.put("<", SearchOperator.withIntPredicate("tests if the first value is less than the second", (left, right) -> left < right));
-        operatorMap.put(">=", SearchOperator.withIntPredicate("tests if the first value is greater than or equal to the second", (left, right) -> left >= right));
-        operatorMap.put("<=", SearchOperator.withIntPredicate("tests if the first value is less than or equal to the second", (left, right) -> left <= right));
+        register.accept(SearchOperator.withIntPredicate(">", "tests if the first value is greater than the second", (left, right) -> left > right));
+        register.accept(SearchOperator.withIntPredicate("<", "tests if the first value is less than the second", (left, right) -> left < right));
+        register.accept(SearchOperator.withIntPredicate(">=", "tests if the first value is greater than or equal to the second", (left, right) -> left >= right));
+        register.accept(SearchOperator.withIntPredicate("<=", "tests if the first value is less than or equal to the second", (left, right) -> left <= right));
         
-        operatorMap.put("find", SearchOperator.withStringPredicate("tests if the first value contains any matches for the second value, which is a regex", (left, right) -> {
+        register.accept(SearchOperator.withStringPredicate("find", "tests if the first value contains any matches for the second value, which is a regex", (left, right) -> {
             Pattern pattern = patternParser.apply(right.trim());
             Matcher matcher = pattern.matcher(left.trim());
             return matcher.find();
         }));
         
-        operatorMap.put("matches", SearchOperator.withStringPredicate("tests if the first value matches the second value, which is a regex", (left, right) -> {
+        register.accept(SearchOperator.withStringPredicate("matches", "tests if the first value matches the second value, which is a regex", (left, right) -> {
             Pattern pattern = patternParser.apply(right.trim());
             Matcher matcher = pattern.matcher(left.trim());
             return matcher.matches();
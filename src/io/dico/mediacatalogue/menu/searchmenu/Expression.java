@@ -0,0 +1,207 @@
+package io.dico.mediacatalogue.menu.searchmenu;
+
+import io.dico.mediacatalogue.media.Media;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The structure of criteria: search conditions, possibly negated, combined by boolean operators.
+ * Chains of the same associative operator are flattened into one expression with many operands.
+ *
+ * <p> An expression is compiled into composed predicates when it is constructed. These short-circuit,
+ * and don't allocate anything when testing a media item.
+ */
+public abstract class Expression implements Predicate<Media> {
+
+    private final Predicate<Media> compiled;
+
+    private Expression(Predicate<Media> compiled) {
+        this.compiled = compiled;
+    }
+
+    @Override
+    public final boolean test(Media media) {
+        return compiled.test(media);
+    }
+
+    /**
+     * Builds the expression for the conditions separated by the operators, respecting operator precedence.
+     * The implications are right-associative.
+     * @param operands the conditions, in order
+     * @param operators the operators between the conditions, one less than the amount of operands
+     * @return the expression
+     */
+    public static Expression build(List<Expression> operands, List<BooleanOperator> operators) {
+        if (operands.size() != operators.size() + 1) {
+            throw new IllegalArgumentException("There must be an operator between every two conditions");
+        }
+        return build(operands, operators, 0, operands.size());
+    }
+
+    // builds operands from (inclusive) to to (exclusive)
+    private static Expression build(List<Expression> operands, List<BooleanOperator> operators, int from, int to) {
+        if (to - from == 1) {
+            return operands.get(from);
+        }
+
+        // split on the weakest operator. The operator between operand i and i + 1 has index i.
+        int split = from;
+        for (int i = from + 1; i < to - 1; i++) {
+            if (operators.get(i).getPrecedence() < operators.get(split).getPrecedence()) {
+                split = i;
+            }
+        }
+        BooleanOperator operator = operators.get(split);
+
+        if (!operator.isAssociative()) {
+            // the leftmost weakest operator, which makes it right-associative
+            return new Junction(operator, build(operands, operators, from, split + 1), build(operands, operators, split + 1, to));
+        }
+
+        List<Expression> parts = new ArrayList<>();
+        int partStart = from;
+        for (int i = split; i < to - 1; i++) {
+            if (operators.get(i) == operator) {
+                parts.add(build(operands, operators, partStart, i + 1));
+                partStart = i + 1;
+            }
+        }
+        parts.add(build(operands, operators, partStart, to));
+        return new Junction(operator, parts);
+    }
+
+    /**
+     * A leaf of the expression
+     */
+    public static final class Condition extends Expression {
+        private final SearchCondition condition;
+        private final boolean negated;
+
+        public Condition(SearchCondition condition, boolean negated) {
+            super(negated ? media -> !condition.test(media) : condition);
+            this.condition = condition;
+            this.negated = negated;
+        }
+
+        public SearchCondition getCondition() {
+            return condition;
+        }
+
+        public boolean isNegated() {
+            return negated;
+        }
+
+        @Override
+        public String toString() {
+            SearchOperator operator = condition.getOperator();
+            String operatorName = operator == null ? "?" : operator.getName();
+            return quote(condition.getLeft()) + ' ' + (negated ? "!" : "") + operatorName + ' ' + quote(condition.getRight());
+        }
+
+        private static String quote(String input) {
+            if (input.isEmpty() || input.indexOf(' ') >= 0 || input.indexOf('"') >= 0 || input.indexOf('\\') >= 0) {
+                return '"' + input.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+            }
+            return input;
+        }
+    }
+
+    /**
+     * Operands combined by a boolean operator.
+     * The implications always have two operands.
+     */
+    public static final class Junction extends Expression {
+        private final BooleanOperator operator;
+        private final List<Expression> operands;
+
+        public Junction(BooleanOperator operator, Expression left, Expression right) {
+            this(operator, Arrays.asList(left, right));
+        }
+
+        public Junction(BooleanOperator operator, List<Expression> operands) {
+            super(compile(operator, operands));
+            this.operator = operator;
+            this.operands = Collections.unmodifiableList(new ArrayList<>(operands));
+        }
+
+        private static Predicate<Media> compile(BooleanOperator operator, List<Expression> operands) {
+            if (operands.size() < 2 || !operator.isAssociative() && operands.size() != 2) {
+                throw new IllegalArgumentException("Illegal amount of operands: " + operands.size());
+            }
+            Predicate<Media> first = operands.get(0).compiled;
+            Predicate<Media> second = operands.get(1).compiled;
+            switch (operator) {
+                case AND:
+                    if (operands.size() == 2) {
+                        return media -> first.test(media) && second.test(media);
+                    }
+                    Predicate<Media>[] conjuncts = compiledOperands(operands);
+                    return media -> {
+                        for (Predicate<Media> conjunct : conjuncts) {
+                            if (!conjunct.test(media)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    };
+                case OR:
+                    if (operands.size() == 2) {
+                        return media -> first.test(media) || second.test(media);
+                    }
+                    Predicate<Media>[] disjuncts = compiledOperands(operands);
+                    return media -> {
+                        for (Predicate<Media> disjunct : disjuncts) {
+                            if (disjunct.test(media)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    };
+                case IMPLIES:
+                    return media -> !first.test(media) || second.test(media);
+                case REVERSE_IMPLIES:
+                    return media -> first.test(media) || !second.test(media);
+                default:
+                    throw new IllegalArgumentException("Unknown operator: " + operator);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Predicate<Media>[] compiledOperands(List<Expression> operands) {
+            Predicate<Media>[] result = (Predicate<Media>[]) new Predicate<?>[operands.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = operands.get(i).compiled;
+            }
+            return result;
+        }
+
+        public BooleanOperator getOperator() {
+            return operator;
+        }
+
+        public List<Expression> getOperands() {
+            return operands;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Expression operand : operands) {
+                if (sb.length() > 0) {
+                    sb.append(' ').append(operator.getSymbol()).append(' ');
+                }
+                if (operand instanceof Junction) {
+                    sb.append('(').append(operand).append(')');
+                } else {
+                    sb.append(operand);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+}
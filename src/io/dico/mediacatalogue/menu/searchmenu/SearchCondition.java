@@ -1,13 +1,24 @@
 package io.dico.mediacatalogue.menu.searchmenu;
 
 import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaField;
+import io.dico.mediacatalogue.media.MediaSchema;
 
-import java.util.Map;
+import java.util.List;
 import java.util.function.BiPredicate;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
-abstract class SearchCondition implements Predicate<Media> {
-    
+/**
+ * A search condition compares two operands. Each operand is the name of a field, which is replaced with the value
+ * of that field for the media item, or a literal.
+ *
+ * <p> The operands are resolved when the condition is constructed: for every type of media, an operand becomes
+ * an accessor for the field, or the literal itself if that type of media doesn't have the field.
+ * Conditions with an operator let it bind the operands, such that literals are converted only once.
+ */
+public abstract class SearchCondition implements Predicate<Media> {
+
     /**
      * A search condition takes media items and returns whether they match the search condition
      * @param left the value for the left assignment
@@ -16,7 +27,7 @@ abstract class SearchCondition implements Predicate<Media> {
      * @return a new SearchCondition
      */
     public static SearchCondition withPredicate(String left, String right, BiPredicate<Object, Object> predicate) {
-        return new SearchCondition(left, right) {
+        return new SearchCondition(left, right, null) {
             @Override
             protected boolean test(Object left, Object right) {
                 return predicate.test(left, right);
@@ -24,21 +35,88 @@ abstract class SearchCondition implements Predicate<Media> {
         };
     }
 
+    /**
+     * Same as withPredicate, but the operator is remembered, such that indexes can recognize the condition
+     * @param left the value for the left assignment
+     * @param right the value for the right assignment
+     * @param operator the operator to match
+     * @return a new SearchCondition
+     */
+    public static SearchCondition withOperator(String left, String right, SearchOperator operator) {
+        return new SearchCondition(left, right, operator) {
+            @Override
+            protected boolean test(Object left, Object right) {
+                return operator.test(left, right);
+            }
+        };
+    }
+
+    /**
+     * @param name the input
+     * @return true if the input is replaced with a field value for at least one type of media
+     */
+    public static boolean isFieldName(String name) {
+        return MediaSchema.isFieldName(name);
+    }
+
     private final String left;
     private final String right;
+    private final SearchOperator operator;
+    private final Predicate<Media>[] bound;
 
-    public SearchCondition(String left, String right) {
+    public SearchCondition(String left, String right, SearchOperator operator) {
         this.left = left;
         this.right = right;
+        this.operator = operator;
+
+        List<MediaSchema<?>> schemas = MediaSchema.values();
+        this.bound = newPredicates(schemas.size());
+        for (MediaSchema<?> schema : schemas) {
+            bound[schema.ordinal()] = bind(schema.getField(left), schema.getField(right));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate<Media>[] newPredicates(int length) {
+        return (Predicate<Media>[]) new Predicate<?>[length];
+    }
+
+    private Predicate<Media> bind(MediaField<?> leftField, MediaField<?> rightField) {
+        if (operator != null) {
+            return operator.bind(left, leftField, right, rightField);
+        }
+        Function<Media, Object> leftValue = leftField == null ? media -> left : leftField::get;
+        Function<Media, Object> rightValue = rightField == null ? media -> right : rightField::get;
+        return media -> test(leftValue.apply(media), rightValue.apply(media));
+    }
+
+    public String getLeft() {
+        return left;
+    }
+
+    public String getRight() {
+        return right;
+    }
+
+    /**
+     * @return The operator of this condition, or null if it was created with a custom predicate
+     */
+    public SearchOperator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @param operatorName the name of the operator
+     * @return true if this condition uses the search operator with the given name
+     */
+    public boolean hasOperator(String operatorName) {
+        return operator != null && operator.getName().equals(operatorName);
     }
 
     public boolean test(Media media) {
-        Map<String, Object> fields = media.getFields();
-        Object leftValue = fields.getOrDefault(left, left);
-        Object rightValue = fields.getOrDefault(right, right);
-        return test(leftValue, rightValue);
+        return bound[media.schema().ordinal()].test(media);
     }
-    
+
     protected abstract boolean test(Object left, Object right);
 
 }
@@ -9,17 +9,17 @@ import io.dico.mediacatalogue.util.Printer;
 
 import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.function.BiConsumer;
 
 public abstract class SearchMenuItem extends MenuItem {
     
     private static final String searchHelp;
     
-    public static SearchMenuItem withConsumer(String actionDescription, MediaContainer mediaContainer, Consumer<List<Media>> consumer) {
+    public static SearchMenuItem withConsumer(String actionDescription, MediaContainer mediaContainer, BiConsumer<int[], List<Media>> consumer) {
         return new SearchMenuItem(actionDescription, mediaContainer) {
             @Override
-            protected void process(List<Media> matches) {
-                consumer.accept(matches);
+            protected void process(int[] ids, List<Media> matches) {
+                consumer.accept(ids, matches);
             }
         };
     }
@@ -45,15 +45,19 @@ public abstract class SearchMenuItem extends MenuItem {
         return this;
     }
     
-    private void preProcess(List<Media> matches) {
-        if (matches.isEmpty()) {
+    private void preProcess(int[] ids) {
+        if (ids.length == 0) {
             console.writeLine("There were no matches");
             return;
         }
-        process(matches);
+        process(ids, mediaContainer.getByIds(ids));
     }
     
-    protected abstract void process(List<Media> matches);
+    /**
+     * @param ids the ids of the matches in the media container, in ascending order
+     * @param matches the matches, in the same order
+     */
+    protected abstract void process(int[] ids, List<Media> matches);
     
     @Override
     public void run() {
@@ -62,13 +66,11 @@ public abstract class SearchMenuItem extends MenuItem {
     
     private void search() {
         Criteria criteria = requestCriteria("Enter criteria to search by");
-        List<Media> matches = mediaContainer.getItemsByCriteria(criteria);
-        preProcess(matches);
+        preProcess(mediaContainer.getIdsByCriteria(criteria));
     }
     
     private void byClass(Class<? extends Media> clazz) {
-        List<Media> items = mediaContainer.getItemsByType(clazz);
-        preProcess(items);
+        preProcess(mediaContainer.getIdsByType(clazz));
     }
     
     public static Criteria requestCriteria(String header) {
@@ -109,7 +111,8 @@ public abstract class SearchMenuItem extends MenuItem {
             }
         });
         
-        help.append('\n').append("distinct conditions must be separated by a boolean operator, such as |, &, and can be negated by prefixing the search operator with !");
+        help.append('\n').append("distinct conditions must be separated by a boolean operator, such as |, &, <implies> and <reverse_implies>, and can be negated by prefixing the search operator with !");
+        help.append('\n').append("& is applied before |, which is applied before the implications");
         searchHelp = help.toString();
     }
     
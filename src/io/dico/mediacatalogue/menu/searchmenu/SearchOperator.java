@@ -1,28 +1,42 @@
 package io.dico.mediacatalogue.menu.searchmenu;
 
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaField;
 import io.dico.mediacatalogue.util.Duration;
 import io.dico.mediacatalogue.util.function.IntBiPredicate;
 
 import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
 public abstract class SearchOperator implements BiPredicate<Object, Object> {
 
-    static SearchOperator withIntPredicate(String description, IntBiPredicate predicate) {
-        return new SearchOperator(description) {
+    /**
+     * Parses the integer that a string stands for when it is compared by an int predicate.
+     * This is the number itself, or else the amount of seconds of the duration it represents.
+     * @param input the input
+     * @return the integer value of the input
+     * @throws IllegalArgumentException if the input is neither a number nor a duration
+     */
+    public static int parseIntLiteral(String input) {
+        try {
+            return Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            return Duration.fromString(input).intValue();
+        }
+    }
+
+    static SearchOperator withIntPredicate(String name, String description, IntBiPredicate predicate) {
+        return new SearchOperator(name, description) {
             private int valueOf(Object object) {
                 if (object instanceof Number) {
                     return ((Number) object).intValue();
                 }
-                boolean isString = object instanceof String;
-                String stringValue = isString ? (String) object : object.toString();
-                try {
-                    return Integer.parseInt(stringValue);
-                } catch (NumberFormatException e) {
-                    if (isString) {
-                        return Duration.fromString((String) object).intValue();
-                    }
-                    throw e;
+                if (object instanceof String) {
+                    return parseIntLiteral((String) object);
                 }
+                return Integer.parseInt(object.toString());
             }
 
             @Override
@@ -33,11 +47,90 @@ public abstract class SearchOperator implements BiPredicate<Object, Object> {
                     return false;
                 }
             }
+
+            @Override
+            Predicate<Media> bind(String left, MediaField<?> leftField, String right, MediaField<?> rightField) {
+                if (leftField == null && rightField == null) {
+                    boolean result = test(left, right);
+                    return media -> result;
+                }
+
+                // literals are parsed once here; a literal that isn't a number or duration never matches
+                long leftConstant = leftField == null ? parseOperand(left) : INVALID;
+                long rightConstant = rightField == null ? parseOperand(right) : INVALID;
+                if ((leftField == null && leftConstant == INVALID) || (rightField == null && rightConstant == INVALID)) {
+                    return media -> false;
+                }
+
+                if (leftField == null) {
+                    int constant = (int) leftConstant;
+                    if (rightField.getKind() == MediaField.Kind.INT) {
+                        return media -> predicate.test(constant, rightField.getInt(media));
+                    }
+                    ToLongFunction<Media> reader = reader(rightField);
+                    return media -> {
+                        long value = reader.applyAsLong(media);
+                        return value != INVALID && predicate.test(constant, (int) value);
+                    };
+                }
+
+                if (rightField == null) {
+                    int constant = (int) rightConstant;
+                    if (leftField.getKind() == MediaField.Kind.INT) {
+                        return media -> predicate.test(leftField.getInt(media), constant);
+                    }
+                    ToLongFunction<Media> reader = reader(leftField);
+                    return media -> {
+                        long value = reader.applyAsLong(media);
+                        return value != INVALID && predicate.test((int) value, constant);
+                    };
+                }
+
+                ToLongFunction<Media> leftReader = reader(leftField);
+                ToLongFunction<Media> rightReader = reader(rightField);
+                return media -> {
+                    long leftValue = leftReader.applyAsLong(media);
+                    if (leftValue == INVALID) {
+                        return false;
+                    }
+                    long rightValue = rightReader.applyAsLong(media);
+                    return rightValue != INVALID && predicate.test((int) leftValue, (int) rightValue);
+                };
+            }
         };
     }
 
-    static SearchOperator withStringPredicate(String description, BiPredicate<String, String> predicate) {
-        return new SearchOperator(description) {
+    // the int values of operands are widened to long, such that this value can mark an operand that has none
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private static long parseOperand(Object value) {
+        if (value == null) {
+            return INVALID;
+        }
+        try {
+            return parseIntLiteral(value.toString());
+        } catch (IllegalArgumentException e) {
+            return INVALID;
+        }
+    }
+
+    // returns a function that reads the int value of a field, or INVALID if it has none
+    private static ToLongFunction<Media> reader(MediaField<?> field) {
+        switch (field.getKind()) {
+            case INT:
+                return field::getInt;
+            case DURATION:
+                return media -> {
+                    Object duration = field.get(media);
+                    return duration == null ? INVALID : ((Duration) duration).intValue();
+                };
+            default:
+                return media -> parseOperand(field.get(media));
+        }
+    }
+
+    static SearchOperator withStringPredicate(String name, String description, BiPredicate<String, String> predicate) {
+        return new SearchOperator(name, description) {
             private String valueOf(Object object) {
                 return object instanceof String ? (String) object : String.valueOf(object);
             }
@@ -49,8 +142,8 @@ public abstract class SearchOperator implements BiPredicate<Object, Object> {
         };
     }
 
-    static SearchOperator withPredicate(String description, BiPredicate<Object, Object> predicate) {
-        return new SearchOperator(description) {
+    static SearchOperator withPredicate(String name, String description, BiPredicate<Object, Object> predicate) {
+        return new SearchOperator(name, description) {
             @Override
             public boolean test(Object left, Object right) {
                 return predicate.test(left, right);
@@ -58,16 +151,23 @@ public abstract class SearchOperator implements BiPredicate<Object, Object> {
         };
     }
 
+    private final String name;
     private final String description;
     
     /**
      * A search operator is used to compare two values to see if they match.
+     * @param name The name of this operator, as the user types it
      * @param description The description of when the values passed match.
      */
-    private SearchOperator(String description) {
+    private SearchOperator(String name, String description) {
+        this.name = name;
         this.description = description;
     }
 
+    public String getName() {
+        return name;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -75,4 +175,19 @@ public abstract class SearchOperator implements BiPredicate<Object, Object> {
     @Override
     public abstract boolean test(Object left, Object right);
 
+    /**
+     * Binds this operator to the operands of a condition, for one type of media.
+     * Each operand is a field of that type of media, or a literal if the field is null.
+     * @param left the left operand
+     * @param leftField the field named by the left operand, or null
+     * @param right the right operand
+     * @param rightField the field named by the right operand, or null
+     * @return a predicate that tests media items of that type against the condition
+     */
+    Predicate<Media> bind(String left, MediaField<?> leftField, String right, MediaField<?> rightField) {
+        Function<Media, Object> leftValue = leftField == null ? media -> left : leftField::get;
+        Function<Media, Object> rightValue = rightField == null ? media -> right : rightField::get;
+        return media -> test(leftValue.apply(media), rightValue.apply(media));
+    }
+
 }
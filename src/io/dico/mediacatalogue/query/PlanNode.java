@@ -0,0 +1,117 @@
+package io.dico.mediacatalogue.query;
+
+import io.dico.mediacatalogue.media.Media;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * A step of a query plan, which produces the media items for its parent
+ */
+public abstract class PlanNode {
+
+    private final String description;
+    private final List<PlanNode> children;
+    private final long estimatedRows;
+    private long actualRows = -1;
+
+    protected PlanNode(String description, List<PlanNode> children, long estimatedRows) {
+        this.description = description;
+        this.children = Collections.unmodifiableList(children);
+        this.estimatedRows = estimatedRows;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public List<PlanNode> getChildren() {
+        return children;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    /**
+     * @return The amount of items produced the last time this node was executed, or -1 if it wasn't executed
+     */
+    public long getActualRows() {
+        return actualRows;
+    }
+
+    /**
+     * @return true if the items produced by this node are in the order in which they were added to the container
+     */
+    public boolean isInInsertionOrder() {
+        return false;
+    }
+
+    /**
+     * Computes the items produced by this node
+     * @return the items
+     */
+    public final Collection<Media> execute() {
+        Collection<Media> result = compute();
+        actualRows = result.size();
+        return result;
+    }
+
+    protected abstract Collection<Media> compute();
+
+    /**
+     * Computes the ids of the items produced by this node
+     * @param idOf finds the id of an item in the container
+     * @return the ids, in ascending order, which is the order in which the items were added
+     */
+    public final int[] executeIds(ToIntFunction<Media> idOf) {
+        int[] result = computeIds(idOf);
+        actualRows = result.length;
+        return result;
+    }
+
+    /**
+     * Computes the ids of the items produced by this node. By default, the id of every item is looked up.
+     * Nodes that know the ids of their items without looking them up should override this.
+     * @param idOf finds the id of an item in the container
+     * @return the ids, in ascending order
+     */
+    protected int[] computeIds(ToIntFunction<Media> idOf) {
+        Collection<Media> items = compute();
+        int[] result = new int[items.size()];
+        int count = 0;
+        for (Media media : items) {
+            result[count++] = idOf.applyAsInt(media);
+        }
+        if (!isInInsertionOrder()) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the ids of the items that compute returns, in the same order, if they are known without looking them up.
+     * Null otherwise.
+     */
+    int[] knownIds() {
+        return null;
+    }
+
+    void explain(StringBuilder sb, int depth) {
+        if (sb.length() > 0) {
+            sb.append('\n');
+        }
+        for (int i = 0; i < depth; i++) {
+            sb.append("  ");
+        }
+        sb.append(description).append(" (estimated rows: ").append(estimatedRows).append(", actual rows: ");
+        sb.append(actualRows < 0 ? "not executed" : Long.toString(actualRows)).append(')');
+        for (PlanNode child : children) {
+            child.explain(sb, depth + 1);
+        }
+    }
+
+}
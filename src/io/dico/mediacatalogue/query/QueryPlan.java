@@ -0,0 +1,64 @@
+package io.dico.mediacatalogue.query;
+
+import io.dico.mediacatalogue.media.Media;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * A physical plan to find the items matching criteria, produced by the {@link QueryPlanner}
+ */
+public class QueryPlan {
+
+    private final PlanNode root;
+    private final Comparator<Media> insertionOrder;
+
+    QueryPlan(PlanNode root, Comparator<Media> insertionOrder) {
+        this.root = root;
+        this.insertionOrder = insertionOrder;
+    }
+
+    public PlanNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Executes this plan
+     * @return The matching items, in the order they were added to the container
+     */
+    public List<Media> execute() {
+        Collection<Media> result = root.execute();
+        List<Media> list = new ArrayList<>(result);
+        if (!root.isInInsertionOrder()) {
+            list.sort(insertionOrder);
+        }
+        return list;
+    }
+
+    /**
+     * Executes this plan, without looking up the ids of the items where the plan knows them
+     * @param idOf finds the id of an item in the container
+     * @return The ids of the matching items, in ascending order, which is the order they were added to the container
+     */
+    public int[] executeIds(ToIntFunction<Media> idOf) {
+        return root.executeIds(idOf);
+    }
+
+    /**
+     * @return A description of the steps of this plan, with their estimated and actual row counts
+     */
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        root.explain(sb, 0);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+}
@@ -0,0 +1,642 @@
+package io.dico.mediacatalogue.query;
+
+import io.dico.mediacatalogue.index.BitmapIndex;
+import io.dico.mediacatalogue.index.MediaIndex;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.menu.searchmenu.BooleanOperator;
+import io.dico.mediacatalogue.menu.searchmenu.Criteria;
+import io.dico.mediacatalogue.menu.searchmenu.Expression;
+import io.dico.mediacatalogue.menu.searchmenu.SearchCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Turns criteria into a query plan.
+ *
+ * <p> Criteria that only compare fields kept in the bitmap index are answered by it entirely.
+ * Otherwise, conditions are looked up in the indexes of the container. The candidate sets of selective conditions are
+ * intersected for conjunctions and united for disjunctions. Whatever the candidates don't guarantee is tested
+ * afterwards, with the operands of conjunctions and disjunctions ordered such that the cheapest and most decisive
+ * conditions are tested first.
+ */
+public class QueryPlanner {
+
+    // candidate sets larger than this fraction of the container aren't worth using
+    private static final double MAX_CANDIDATE_FRACTION = 0.5;
+
+    private final Collection<Media> container;
+    private final Supplier<List<Media>> snapshot;
+    private final List<MediaIndex> indexes;
+    private final Comparator<Media> insertionOrder;
+    private final BitmapIndex bitmaps;
+
+    /**
+     * @param container all media items, in insertion order
+     * @param snapshot supplies the items of the container as a list that isn't modified afterwards, to be scanned
+     * @param indexes the indexes kept for the container
+     * @param insertionOrder orders items by the time they were added to the container
+     */
+    public QueryPlanner(Collection<Media> container, Supplier<List<Media>> snapshot, List<MediaIndex> indexes, Comparator<Media> insertionOrder) {
+        this(container, snapshot, indexes, insertionOrder, null);
+    }
+
+    /**
+     * @param container all media items, in insertion order
+     * @param snapshot supplies the items of the container as a list that isn't modified afterwards, to be scanned
+     * @param indexes the indexes kept for the container
+     * @param insertionOrder orders items by the time they were added to the container
+     * @param bitmaps the bitmap index kept for the container, or null
+     */
+    public QueryPlanner(Collection<Media> container, Supplier<List<Media>> snapshot, List<MediaIndex> indexes, Comparator<Media> insertionOrder,
+                        BitmapIndex bitmaps) {
+        this.container = container;
+        this.snapshot = snapshot;
+        this.indexes = indexes;
+        this.insertionOrder = insertionOrder;
+        this.bitmaps = bitmaps;
+    }
+
+    public QueryPlan plan(Criteria criteria) {
+        return plan(criteria, false);
+    }
+
+    /**
+     * @param criteria the criteria
+     * @param parallel whether the items that remain after using the indexes are tested in parallel
+     * @return A plan to find the items matching the criteria
+     */
+    public QueryPlan plan(Criteria criteria, boolean parallel) {
+        Planning planning = new Planning(container.size());
+        Expression expression = criteria.getExpression();
+        BitSet ids = bitmaps == null ? null : bitmaps.evaluate(expression);
+        if (ids != null) {
+            return new QueryPlan(new BitmapNode(bitmaps, expression, ids), insertionOrder);
+        }
+        Candidates candidates = planning.candidates(expression);
+
+        PlanNode input;
+        Expression residual;
+        if (candidates == null) {
+            // without selective candidates, an ordered subset of the items is still cheaper to scan than all of them
+            Candidates subset = planning.orderedSubset(expression);
+            if (subset == null) {
+                input = new FullScanNode(container.size(), snapshot, bitmaps);
+                residual = expression;
+            } else {
+                input = subset.node;
+                residual = planning.residual(expression);
+            }
+        } else {
+            input = candidates.node;
+            residual = candidates.exact ? null : planning.residual(expression);
+        }
+
+        if (residual == null) {
+            return new QueryPlan(input, insertionOrder);
+        }
+        residual = planning.order(residual);
+        long estimate = Math.min(input.getEstimatedRows(), Math.round(container.size() * planning.selectivity(expression)));
+        return new QueryPlan(new FilterNode(residual, input, estimate, parallel), insertionOrder);
+    }
+
+    // an estimate of the relative cost of testing a condition
+    private static double cost(SearchCondition condition) {
+        if (condition.getOperator() == null) {
+            return 5;
+        }
+        switch (condition.getOperator().getName()) {
+            case "=":
+                return 1;
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                return 2;
+            case "contains":
+                return 3;
+            default:
+                // regular expressions
+                return 10;
+        }
+    }
+
+    // an estimate of the fraction of items that match a condition, if no index knows better
+    private static double defaultSelectivity(SearchCondition condition) {
+        if (condition.getOperator() == null) {
+            return 0.5;
+        }
+        switch (condition.getOperator().getName()) {
+            case "=":
+                return 0.05;
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                return 0.33;
+            default:
+                return 0.1;
+        }
+    }
+
+    // the candidates for (part of) an expression: the items that can match it
+    private static class Candidates {
+        final PlanNode node;
+        final Collection<Media> items;
+        // true if all of the items match
+        final boolean exact;
+
+        Candidates(PlanNode node, Collection<Media> items, boolean exact) {
+            this.node = node;
+            this.items = items;
+            this.exact = exact;
+        }
+
+        long count() {
+            return items == null ? node.getEstimatedRows() : items.size();
+        }
+    }
+
+    // the state of planning a single query
+    private class Planning {
+        private final int size;
+        // the candidate sets found for sub expressions, by identity
+        private final Map<Expression, Candidates> found = new IdentityHashMap<>();
+        // the sub expressions whose candidates are used for the candidates of their parent
+        private final Set<Expression> used = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Planning(int size) {
+            this.size = size;
+        }
+
+        private boolean isSelective(long count) {
+            return count <= size * MAX_CANDIDATE_FRACTION;
+        }
+
+        // returns null if every item is a candidate
+        Candidates candidates(Expression expression) {
+            Candidates result;
+            if (expression instanceof Expression.Condition) {
+                result = lookup((Expression.Condition) expression);
+            } else {
+                result = combine((Expression.Junction) expression);
+            }
+            if (result != null) {
+                found.put(expression, result);
+            }
+            return result;
+        }
+
+        private Candidates lookup(Expression.Condition expression) {
+            if (expression.isNegated()) {
+                return null;
+            }
+            SearchCondition condition = expression.getCondition();
+            MediaIndex bestIndex = null;
+            Collection<Media> best = null;
+            boolean bestExact = false;
+            for (MediaIndex index : indexes) {
+                Collection<Media> items = index.lookup(condition);
+                if (items == null) {
+                    continue;
+                }
+                boolean exact = index.isExact(condition);
+                if (best == null || items.size() < best.size() || items.size() == best.size() && exact && !bestExact) {
+                    bestIndex = index;
+                    best = items;
+                    bestExact = exact;
+                }
+            }
+            if (best == null || !isSelective(best.size())) {
+                return null;
+            }
+            PlanNode node = new IndexLookupNode(bestIndex, expression, best);
+            return new Candidates(node, best, bestExact);
+        }
+
+        private Candidates combine(Expression.Junction expression) {
+            List<Candidates> parts = new ArrayList<>();
+            for (Expression operand : expression.getOperands()) {
+                Candidates candidates = candidates(operand);
+                if (candidates != null) {
+                    parts.add(candidates);
+                }
+            }
+            boolean complete = parts.size() == expression.getOperands().size();
+
+            switch (expression.getOperator()) {
+                case AND: {
+                    if (parts.isEmpty()) {
+                        return null;
+                    }
+                    for (Expression operand : expression.getOperands()) {
+                        if (found.containsKey(operand)) {
+                            used.add(operand);
+                        }
+                    }
+                    if (parts.size() == 1) {
+                        Candidates only = parts.get(0);
+                        return new Candidates(only.node, only.items, only.exact && complete);
+                    }
+                    parts.sort(Comparator.comparingLong(Candidates::count));
+                    boolean exact = complete && parts.stream().allMatch(candidates -> candidates.exact);
+                    List<PlanNode> children = parts.stream().map(candidates -> candidates.node).collect(Collectors.toList());
+                    long estimate = Math.min(parts.get(0).count(), Math.round(size * selectivity(expression)));
+                    IntersectNode node = new IntersectNode(children, estimate);
+                    return new Candidates(node, null, exact);
+                }
+                case OR: {
+                    if (!complete) {
+                        return null;
+                    }
+                    long total = parts.stream().mapToLong(Candidates::count).sum();
+                    if (!isSelective(total)) {
+                        return null;
+                    }
+                    used.addAll(expression.getOperands());
+                    boolean exact = parts.stream().allMatch(candidates -> candidates.exact);
+                    List<PlanNode> children = parts.stream().map(candidates -> candidates.node).collect(Collectors.toList());
+                    return new Candidates(new UnionNode(children, Math.min(size, total)), null, exact);
+                }
+                default:
+                    // the negated operand of an implication can match anything
+                    return null;
+            }
+        }
+
+        // finds the smallest exact candidates in insertion order for the expression or an operand of its conjunction
+        Candidates orderedSubset(Expression expression) {
+            List<Expression> operands;
+            if (expression instanceof Expression.Condition) {
+                operands = Collections.singletonList(expression);
+            } else if (((Expression.Junction) expression).getOperator() == BooleanOperator.AND) {
+                operands = ((Expression.Junction) expression).getOperands();
+            } else {
+                return null;
+            }
+
+            Expression.Condition bestOperand = null;
+            MediaIndex bestIndex = null;
+            Collection<Media> best = null;
+            for (Expression operand : operands) {
+                if (!(operand instanceof Expression.Condition) || ((Expression.Condition) operand).isNegated()) {
+                    continue;
+                }
+                SearchCondition condition = ((Expression.Condition) operand).getCondition();
+                for (MediaIndex index : indexes) {
+                    Collection<Media> items = index.lookup(condition);
+                    if (items != null && index.isExact(condition) && index.isInInsertionOrder(condition)
+                            && items.size() < size && (best == null || items.size() < best.size())) {
+                        bestOperand = (Expression.Condition) operand;
+                        bestIndex = index;
+                        best = items;
+                    }
+                }
+            }
+            Candidates bitmapSubset = bitmapSubset(operands, best == null ? size : best.size());
+            if (bitmapSubset != null) {
+                return bitmapSubset;
+            }
+            if (best == null) {
+                return null;
+            }
+            Candidates result = new Candidates(new IndexLookupNode(bestIndex, bestOperand, best, true), best, true);
+            found.put(bestOperand, result);
+            used.add(bestOperand);
+            return result;
+        }
+
+        // the operands of a conjunction that the bitmaps answer, if they leave fewer than limit items
+        private Candidates bitmapSubset(List<Expression> operands, int limit) {
+            if (bitmaps == null) {
+                return null;
+            }
+            List<Expression> covered = new ArrayList<>();
+            List<Candidates> parts = new ArrayList<>();
+            BitSet ids = null;
+            for (Expression operand : operands) {
+                BitSet operandIds = bitmaps.evaluate(operand);
+                if (operandIds == null) {
+                    continue;
+                }
+                covered.add(operand);
+                parts.add(new Candidates(new BitmapNode(bitmaps, operand, operandIds), null, true));
+                if (ids == null) {
+                    ids = (BitSet) operandIds.clone();
+                } else {
+                    ids.and(operandIds);
+                }
+            }
+            if (ids == null || ids.cardinality() >= limit) {
+                return null;
+            }
+            for (int i = 0; i < covered.size(); i++) {
+                found.put(covered.get(i), parts.get(i));
+                used.add(covered.get(i));
+            }
+            Expression description = covered.size() == 1 ? covered.get(0) : new Expression.Junction(BooleanOperator.AND, covered);
+            return new Candidates(new BitmapNode(bitmaps, description, ids), null, true);
+        }
+
+        // returns the part of the expression that isn't guaranteed by the candidates, or null if nothing is left
+        Expression residual(Expression expression) {
+            Candidates candidates = found.get(expression);
+            if (candidates != null && candidates.exact) {
+                return null;
+            }
+            if (!(expression instanceof Expression.Junction)) {
+                return expression;
+            }
+            Expression.Junction junction = (Expression.Junction) expression;
+            if (junction.getOperator() != BooleanOperator.AND) {
+                return expression;
+            }
+            // the candidates of a conjunction are in every candidate set used, so exact ones hold already
+            List<Expression> remaining = new ArrayList<>();
+            for (Expression operand : junction.getOperands()) {
+                Candidates operandCandidates = found.get(operand);
+                if (operandCandidates != null && operandCandidates.exact && used.contains(operand)) {
+                    continue;
+                }
+                remaining.add(operand);
+            }
+            if (remaining.isEmpty()) {
+                return null;
+            }
+            return remaining.size() == 1 ? remaining.get(0) : new Expression.Junction(BooleanOperator.AND, remaining);
+        }
+
+        // reorders the operands of conjunctions and disjunctions, such that they're decided as cheaply as possible
+        Expression order(Expression expression) {
+            if (!(expression instanceof Expression.Junction)) {
+                return expression;
+            }
+            Expression.Junction junction = (Expression.Junction) expression;
+            List<Expression> operands = new ArrayList<>();
+            for (Expression operand : junction.getOperands()) {
+                operands.add(order(operand));
+            }
+            switch (junction.getOperator()) {
+                case AND:
+                    // test the conditions that are cheap and rarely true first
+                    operands.sort(Comparator.comparingDouble(operand -> cost(operand) / Math.max(1e-6, 1 - selectivity(operand))));
+                    break;
+                case OR:
+                    // test the conditions that are cheap and often true first
+                    operands.sort(Comparator.comparingDouble(operand -> cost(operand) / Math.max(1e-6, selectivity(operand))));
+                    break;
+                default:
+                    break;
+            }
+            return new Expression.Junction(junction.getOperator(), operands);
+        }
+
+        double cost(Expression expression) {
+            if (expression instanceof Expression.Condition) {
+                return QueryPlanner.cost(((Expression.Condition) expression).getCondition());
+            }
+            double total = 0;
+            for (Expression operand : ((Expression.Junction) expression).getOperands()) {
+                total += cost(operand);
+            }
+            return total;
+        }
+
+        double selectivity(Expression expression) {
+            if (expression instanceof Expression.Condition) {
+                Expression.Condition condition = (Expression.Condition) expression;
+                double selectivity;
+                Candidates candidates = found.get(expression);
+                if (candidates != null && size > 0) {
+                    selectivity = (double) candidates.count() / size;
+                } else {
+                    selectivity = defaultSelectivity(condition.getCondition());
+                }
+                return condition.isNegated() ? 1 - selectivity : selectivity;
+            }
+
+            Expression.Junction junction = (Expression.Junction) expression;
+            List<Expression> operands = junction.getOperands();
+            switch (junction.getOperator()) {
+                case AND: {
+                    double result = 1;
+                    for (Expression operand : operands) {
+                        result *= selectivity(operand);
+                    }
+                    return result;
+                }
+                case OR: {
+                    double none = 1;
+                    for (Expression operand : operands) {
+                        none *= 1 - selectivity(operand);
+                    }
+                    return 1 - none;
+                }
+                case IMPLIES:
+                    return 1 - selectivity(operands.get(0)) * (1 - selectivity(operands.get(1)));
+                case REVERSE_IMPLIES:
+                    return 1 - (1 - selectivity(operands.get(0))) * selectivity(operands.get(1));
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+
+    private static class FullScanNode extends PlanNode {
+        private final Supplier<List<Media>> snapshot;
+        private final BitmapIndex bitmaps;
+
+        FullScanNode(int size, Supplier<List<Media>> snapshot, BitmapIndex bitmaps) {
+            super("Full scan", Collections.emptyList(), size);
+            this.snapshot = snapshot;
+            this.bitmaps = bitmaps;
+        }
+
+        @Override
+        public boolean isInInsertionOrder() {
+            return true;
+        }
+
+        @Override
+        protected Collection<Media> compute() {
+            return snapshot.get();
+        }
+
+        @Override
+        protected int[] computeIds(ToIntFunction<Media> idOf) {
+            return bitmaps == null ? super.computeIds(idOf) : bitmaps.ids();
+        }
+
+        @Override
+        int[] knownIds() {
+            // the bitmap index holds the id of every item, and the snapshot is in the order of the ids
+            return bitmaps == null ? null : bitmaps.ids();
+        }
+    }
+
+    private static class BitmapNode extends PlanNode {
+        private final BitmapIndex bitmaps;
+        private final BitSet ids;
+
+        BitmapNode(BitmapIndex bitmaps, Expression expression, BitSet ids) {
+            super("Evaluate " + expression + " on the " + bitmaps, Collections.emptyList(), ids.cardinality());
+            // the bitmaps are combined while planning, only the items are looked up when executed
+            this.bitmaps = bitmaps;
+            this.ids = ids;
+        }
+
+        @Override
+        public boolean isInInsertionOrder() {
+            return true;
+        }
+
+        @Override
+        protected Collection<Media> compute() {
+            return bitmaps.items(ids);
+        }
+
+        @Override
+        protected int[] computeIds(ToIntFunction<Media> idOf) {
+            return ids.stream().toArray();
+        }
+
+        @Override
+        int[] knownIds() {
+            return ids.stream().toArray();
+        }
+    }
+
+    private static class IndexLookupNode extends PlanNode {
+        private final Collection<Media> items;
+        private final boolean inInsertionOrder;
+
+        IndexLookupNode(MediaIndex index, Expression.Condition condition, Collection<Media> items) {
+            this(index, condition, items, false);
+        }
+
+        IndexLookupNode(MediaIndex index, Expression.Condition condition, Collection<Media> items, boolean inInsertionOrder) {
+            super("Look up " + condition + " in " + index, Collections.emptyList(), items.size());
+            // the lookup is done while planning, to know how many items it finds
+            this.items = items;
+            this.inInsertionOrder = inInsertionOrder;
+        }
+
+        @Override
+        public boolean isInInsertionOrder() {
+            return inInsertionOrder;
+        }
+
+        @Override
+        protected Collection<Media> compute() {
+            return items;
+        }
+    }
+
+    private static class IntersectNode extends PlanNode {
+        IntersectNode(List<PlanNode> children, long estimatedRows) {
+            super("Intersect", children, estimatedRows);
+        }
+
+        @Override
+        protected Collection<Media> compute() {
+            // the children are ordered from the smallest estimate
+            Set<Media> result = new HashSet<>(getChildren().get(0).execute());
+            for (int i = 1; i < getChildren().size() && !result.isEmpty(); i++) {
+                Set<Media> next = new HashSet<>();
+                for (Media media : getChildren().get(i).execute()) {
+                    if (result.contains(media)) {
+                        next.add(media);
+                    }
+                }
+                result = next;
+            }
+            return result;
+        }
+    }
+
+    private static class UnionNode extends PlanNode {
+        UnionNode(List<PlanNode> children, long estimatedRows) {
+            super("Union", children, estimatedRows);
+        }
+
+        @Override
+        protected Collection<Media> compute() {
+            Set<Media> result = new HashSet<>();
+            for (PlanNode child : getChildren()) {
+                result.addAll(child.execute());
+            }
+            return result;
+        }
+    }
+
+    private static class FilterNode extends PlanNode {
+        private final Expression predicate;
+        private final boolean parallel;
+
+        FilterNode(Expression predicate, PlanNode input, long estimatedRows, boolean parallel) {
+            super((parallel ? "Parallel filter by " : "Filter by ") + predicate, Collections.singletonList(input), estimatedRows);
+            this.predicate = predicate;
+            this.parallel = parallel;
+        }
+
+        @Override
+        public boolean isInInsertionOrder() {
+            return getChildren().get(0).isInInsertionOrder();
+        }
+
+        @Override
+        protected Collection<Media> compute() {
+            Collection<Media> input = getChildren().get(0).execute();
+            if (!parallel) {
+                return input.stream().filter(predicate).collect(Collectors.toList());
+            }
+            return asRandomAccessList(input).parallelStream().filter(predicate).collect(Collectors.toList());
+        }
+
+        @Override
+        protected int[] computeIds(ToIntFunction<Media> idOf) {
+            PlanNode child = getChildren().get(0);
+            Collection<Media> input = child.execute();
+            int[] ids = child.knownIds();
+            if (ids == null) {
+                Stream<Media> stream = parallel ? asRandomAccessList(input).parallelStream() : input.stream();
+                int[] result = stream.filter(predicate).mapToInt(idOf).toArray();
+                if (!child.isInInsertionOrder()) {
+                    Arrays.sort(result);
+                }
+                return result;
+            }
+            // the ids of the matching items are taken from their positions in the input
+            List<Media> list = asRandomAccessList(input);
+            IntStream positions = IntStream.range(0, list.size());
+            if (parallel) {
+                positions = positions.parallel();
+            }
+            return positions.filter(i -> predicate.test(list.get(i))).map(i -> ids[i]).toArray();
+        }
+
+        // ordered streams over arrays split evenly and keep the order of the input
+        private static List<Media> asRandomAccessList(Collection<Media> input) {
+            if (input instanceof List && input instanceof RandomAccess) {
+                return (List<Media>) input;
+            }
+            return Arrays.asList(input.toArray(new Media[0]));
+        }
+    }
+
+}
@@ -0,0 +1,425 @@
+package io.dico.mediacatalogue.storage;
+
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaField;
+import io.dico.mediacatalogue.media.MediaSchema;
+import io.dico.mediacatalogue.util.Duration;
+import io.dico.mediacatalogue.util.StringDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary format for catalogues.
+ *
+ * <p> A file starts with the magic bytes "MCAT" and the version of the format. Then follows a dictionary of all
+ * distinct strings, which are referred to by their position in it, and a section for each type of media.
+ * A section names its fields and their kinds, followed by the values of the fields for each item.
+ * Numbers are written as variable-length integers, so small numbers take a single byte.
+ *
+ * <pre>
+ * file:       "MCAT" version:varint dictionary sectionCount:varint section*
+ * dictionary: count:varint (length:varint utf8Bytes)*
+ * section:    typeName:string fieldCount:varint (name:string kind:byte)* itemCount:varint value*
+ * string:     0 for null, otherwise 1 + the position in the dictionary
+ * value:      string for string fields, zigzag varint for int fields, varint seconds (0 for none) for durations
+ * </pre>
+ *
+ * Fields that the reader doesn't know are skipped, and fields that are missing keep their default value.
+ */
+public class BinaryCatalogue {
+
+    /**
+     * The extension of files in this format
+     */
+    public static final String EXTENSION = ".mcat";
+
+    private static final byte[] magic = {'M', 'C', 'A', 'T'};
+    private static final int version = 1;
+    private static final int bufferSize = 1 << 16;
+    private static final MediaField.Kind[] kindValues = MediaField.Kind.values();
+
+    /**
+     * @param path the file
+     * @return true if the file starts with the magic bytes of this format
+     * @throws IOException if the file can't be read
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        byte[] start = new byte[magic.length];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read = 0;
+            while (read < start.length) {
+                int count = in.read(start, read, start.length - read);
+                if (count < 0) {
+                    return false;
+                }
+                read += count;
+            }
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (start[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the items to a file, grouped by type of media
+     * @param items the items
+     * @param path the file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Collection<? extends Media> items, Path path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), bufferSize)) {
+            write(items, out);
+        }
+    }
+
+    /**
+     * Writes the items to a stream, grouped by type of media
+     * @param items the items
+     * @param out the stream, which is not closed
+     * @throws IOException if the stream can't be written
+     */
+    public static void write(Collection<? extends Media> items, OutputStream out) throws IOException {
+        List<MediaSchema<?>> schemas = MediaSchema.values();
+        List<List<Media>> sections = new ArrayList<>();
+        for (int i = 0; i < schemas.size(); i++) {
+            sections.add(new ArrayList<>());
+        }
+        for (Media media : items) {
+            sections.get(media.schema().ordinal()).add(media);
+        }
+
+        // the dictionary holds the strings of the items and the names in the section headers
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (MediaSchema<?> schema : schemas) {
+            intern(schema.getTypeName(), dictionary, strings);
+            for (MediaField<?> field : fieldsOf(schema)) {
+                intern(field.getName(), dictionary, strings);
+                if (field.getKind() == MediaField.Kind.STRING) {
+                    for (Media media : sections.get(schema.ordinal())) {
+                        intern((String) field.get(media), dictionary, strings);
+                    }
+                }
+            }
+        }
+
+        Output output = new Output(out);
+        output.bytes(magic);
+        output.varint(version);
+        output.varint(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            output.varint(bytes.length);
+            output.bytes(bytes);
+        }
+
+        output.varint(schemas.size());
+        for (MediaSchema<?> schema : schemas) {
+            List<? extends MediaField<?>> fields = fieldsOf(schema);
+            output.string(schema.getTypeName(), dictionary);
+            output.varint(fields.size());
+            for (MediaField<?> field : fields) {
+                output.string(field.getName(), dictionary);
+                output.out.write(field.getKind().ordinal());
+            }
+
+            List<Media> section = sections.get(schema.ordinal());
+            output.varint(section.size());
+            for (Media media : section) {
+                for (MediaField<?> field : fields) {
+                    switch (field.getKind()) {
+                        case STRING:
+                            output.string((String) field.get(media), dictionary);
+                            break;
+                        case INT:
+                            output.zigzag(field.getInt(media));
+                            break;
+                        case DURATION:
+                            Duration duration = (Duration) field.get(media);
+                            output.varint(duration == null ? 0 : duration.intValue());
+                            break;
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void intern(String string, Map<String, Integer> dictionary, List<String> strings) {
+        if (string != null && !dictionary.containsKey(string)) {
+            dictionary.put(string, strings.size() + 1);
+            strings.add(string);
+        }
+    }
+
+    // the type of an item is implied by its section
+    private static List<? extends MediaField<?>> fieldsOf(MediaSchema<?> schema) {
+        List<? extends MediaField<?>> fields = schema.getFields();
+        return fields.subList(1, fields.size());
+    }
+
+    /**
+     * Reads the items in a file into the collection, section by section
+     * @param path the file
+     * @param target the collection
+     * @return the amount of items read
+     * @throws IOException if the file can't be read, or isn't in this format
+     */
+    public static long read(Path path, Collection<? super Media> target) throws IOException {
+        return read(path, target, null);
+    }
+
+    /**
+     * Reads the items in a file into the collection, sharing the instances of repeated strings through the dictionary
+     * @param path the file
+     * @param target the collection
+     * @param dictionary the dictionary of the catalogue, or null to not share strings
+     * @return the amount of items read
+     * @throws IOException if the file can't be read, or isn't in this format
+     */
+    public static long read(Path path, Collection<? super Media> target, StringDictionary dictionary) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return read(in, target, dictionary);
+        }
+    }
+
+    /**
+     * Reads the items in a stream into the collection, section by section
+     * @param in the stream, which is not closed
+     * @param target the collection
+     * @return the amount of items read
+     * @throws IOException if the stream can't be read, or isn't in this format
+     */
+    public static long read(InputStream in, Collection<? super Media> target) throws IOException {
+        return read(in, target, null);
+    }
+
+    /**
+     * Reads the items in a stream into the collection, sharing the instances of repeated strings through the dictionary.
+     * Like items read from json, titles aren't shared.
+     * @param in the stream, which is not closed
+     * @param target the collection
+     * @param dictionary the dictionary of the catalogue, or null to not share strings
+     * @return the amount of items read
+     * @throws IOException if the stream can't be read, or isn't in this format
+     */
+    public static long read(InputStream in, Collection<? super Media> target, StringDictionary dictionary) throws IOException {
+        Input input = new Input(in);
+        for (byte b : magic) {
+            if (input.read() != b) {
+                throw new IOException("Not a binary catalogue");
+            }
+        }
+        int fileVersion = input.varint();
+        if (fileVersion != version) {
+            throw new IOException("Unsupported version of the binary catalogue format: " + fileVersion);
+        }
+
+        String[] strings = new String[input.varint() + 1];
+        byte[] bytes = new byte[64];
+        for (int i = 1; i < strings.length; i++) {
+            int length = input.varint();
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            input.readFully(bytes, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        // the instances in the dictionary of the strings that are shared, by their position in the file
+        String[] shared = new String[strings.length];
+
+        long count = 0;
+        int sectionCount = input.varint();
+        for (int section = 0; section < sectionCount; section++) {
+            String typeName = input.string(strings);
+            MediaSchema<?> schema = null;
+            for (MediaSchema<?> candidate : MediaSchema.values()) {
+                if (candidate.getTypeName().equals(typeName)) {
+                    schema = candidate;
+                }
+            }
+
+            // the position of each field of the file in the fields of the schema, or -1 if the schema doesn't have it
+            int fieldCount = input.varint();
+            MediaField.Kind[] kinds = new MediaField.Kind[fieldCount];
+            int[] positions = new int[fieldCount];
+            boolean[] share = new boolean[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                String name = input.string(strings);
+                int kind = input.read();
+                if (kind < 0 || kind >= kindValues.length) {
+                    throw new IOException("Unknown kind of field: " + kind);
+                }
+                kinds[i] = kindValues[kind];
+                MediaField<?> field = schema == null ? null : schema.getField(name);
+                positions[i] = field != null && field.getKind() == kinds[i] ? schema.getFields().indexOf(field) : -1;
+                share[i] = dictionary != null && !"title".equals(name);
+            }
+
+            int size = schema == null ? 0 : schema.getFields().size();
+            Object[] values = new Object[size];
+            int itemCount = input.varint();
+            List<Media> items = new ArrayList<>(schema == null ? 0 : itemCount);
+            for (int item = 0; item < itemCount; item++) {
+                Arrays.fill(values, null);
+                for (int i = 0; i < fieldCount; i++) {
+                    int position = positions[i];
+                    switch (kinds[i]) {
+                        case STRING:
+                            int code = input.stringCode(strings);
+                            if (position >= 0) {
+                                if (share[i] && code != 0) {
+                                    if (shared[code] == null) {
+                                        shared[code] = dictionary.intern(strings[code]);
+                                    }
+                                    values[position] = shared[code];
+                                } else {
+                                    values[position] = strings[code];
+                                }
+                            }
+                            break;
+                        case INT:
+                            int value = input.zigzag();
+                            if (position >= 0) {
+                                values[position] = value;
+                            }
+                            break;
+                        case DURATION:
+                            int seconds = input.varint();
+                            if (position >= 0 && seconds != 0) {
+                                values[position] = seconds;
+                            }
+                            break;
+                    }
+                }
+                if (schema != null) {
+                    items.add(schema.create(values));
+                }
+            }
+            // a container updates its indexes for all items of the section at once
+            target.addAll(items);
+            count += items.size();
+        }
+        return count;
+    }
+
+    private static class Output {
+        private final OutputStream out;
+
+        Output(OutputStream out) {
+            this.out = out;
+        }
+
+        void bytes(byte[] bytes) throws IOException {
+            out.write(bytes);
+        }
+
+        void varint(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        void zigzag(int value) throws IOException {
+            varint((value << 1) ^ (value >> 31));
+        }
+
+        void string(String string, Map<String, Integer> dictionary) throws IOException {
+            varint(string == null ? 0 : dictionary.get(string));
+        }
+    }
+
+    // reads from its own buffer, such that reading a byte is not a call to the stream
+    private static class Input {
+        private final InputStream in;
+        private final byte[] buffer = new byte[bufferSize];
+        private int position;
+        private int limit;
+
+        Input(InputStream in) {
+            this.in = in;
+        }
+
+        private boolean fill() throws IOException {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+
+        int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        void readFully(byte[] bytes, int length) throws IOException {
+            int read = 0;
+            while (read < length) {
+                if (position == limit && !fill()) {
+                    throw new EOFException("Unexpected end of the binary catalogue");
+                }
+                int count = Math.min(length - read, limit - position);
+                System.arraycopy(buffer, position, bytes, read, count);
+                position += count;
+                read += count;
+            }
+        }
+
+        int varint() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = read();
+                if (b < 0) {
+                    throw new EOFException("Unexpected end of the binary catalogue");
+                }
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+
+        int zigzag() throws IOException {
+            int value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String string(String[] strings) throws IOException {
+            return strings[stringCode(strings)];
+        }
+
+        // the position of the string in the dictionary of the file, 0 for null
+        int stringCode(String[] strings) throws IOException {
+            int code = varint();
+            if (code < 0 || code >= strings.length) {
+                throw new IOException("Unknown string: " + code);
+            }
+            return code;
+        }
+    }
+
+}
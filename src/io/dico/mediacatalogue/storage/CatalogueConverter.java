@@ -0,0 +1,35 @@
+package io.dico.mediacatalogue.storage;
+
+import io.dico.mediacatalogue.MediaContainer;
+
+import java.io.IOException;
+
+/**
+ * Converts catalogues between the JSON layout and the binary format.
+ * The format of the input is recognized by its content, the format of the output by its extension.
+ *
+ * <p> Usage: CatalogueConverter &lt;input&gt; &lt;output&gt;, e.g. CatalogueConverter catalogue.json catalogue.mcat
+ */
+public class CatalogueConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: CatalogueConverter <input> <output>");
+            System.out.println("The output is written in the binary format if it ends with " + BinaryCatalogue.EXTENSION + ", otherwise as json");
+            return;
+        }
+        convert(args[0], args[1]);
+    }
+
+    /**
+     * @param input the file to read, in either format
+     * @param output the file to write, in the binary format if it has the extension of that format
+     * @throws IOException if a file can't be read or written
+     */
+    public static void convert(String input, String output) throws IOException {
+        MediaContainer container = new MediaContainer();
+        container.load(input, new ParallelCatalogueLoader());
+        container.save(output, true);
+    }
+
+}
@@ -0,0 +1,369 @@
+package io.dico.mediacatalogue.storage;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaSchema;
+import io.dico.mediacatalogue.util.StringDictionary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * An append-only log of the changes made to a catalogue since its file was last written in full.
+ *
+ * <p> The journal is kept next to the catalogue, with {@link #EXTENSION} appended to its name.
+ * Every line is a json array holding a change: {@code ["add", "films", {...}]}, {@code ["remove", "films", {...}]}
+ * or {@code ["clear"]}. Changes are held in memory until the journal is flushed, which only appends them,
+ * so saving costs as much as the changes rather than the whole catalogue.
+ *
+ * <p> When the journal grows past the compaction threshold, it is renamed to {@link #COMPACTING_EXTENSION}
+ * and a new journal is started. A background thread then writes the catalogue in full and deletes the renamed journal.
+ * Replaying a change that is already in the catalogue has no effect, so the journals are replayed in order of age
+ * if the catalogue was rewritten but the renamed journal wasn't deleted yet.
+ */
+public class CatalogueJournal implements Closeable {
+
+    /**
+     * The extension appended to the name of a catalogue for its journal
+     */
+    public static final String EXTENSION = ".journal";
+
+    /**
+     * The extension appended to the name of a catalogue for the journal that is being compacted
+     */
+    public static final String COMPACTING_EXTENSION = ".journal.compacting";
+
+    /**
+     * The default size of the journal from which it is compacted, in bytes
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 1 << 20;
+
+    private final Path catalogue;
+    private final Path journal;
+    private final Path compacting;
+    private final Supplier<? extends Collection<? extends Media>> items;
+    private final List<Record> pending = new ArrayList<>();
+    private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private ExecutorService executor;
+    private Future<?> compaction;
+
+    /**
+     * @param catalogue the catalogue file
+     * @param items supplies the items of the catalogue, including all changes recorded so far.
+     *              The collection must not change afterwards, as it is written on another thread.
+     */
+    public CatalogueJournal(Path catalogue, Supplier<? extends Collection<? extends Media>> items) {
+        this.catalogue = catalogue.toAbsolutePath().normalize();
+        this.journal = Paths.get(this.catalogue + EXTENSION);
+        this.compacting = Paths.get(this.catalogue + COMPACTING_EXTENSION);
+        this.items = items;
+    }
+
+    /**
+     * @param compactionThreshold the size of the journal from which it is compacted, in bytes
+     * @return this
+     */
+    public CatalogueJournal withCompactionThreshold(long compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("The compaction threshold must be positive");
+        }
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    /**
+     * @param path a file
+     * @return true if this is the journal of that file
+     */
+    public boolean isFor(Path path) {
+        return catalogue.equals(path.toAbsolutePath().normalize());
+    }
+
+    /**
+     * @return The amount of changes that weren't flushed yet
+     */
+    public int getPendingChanges() {
+        return pending.size();
+    }
+
+    public void added(Media media) {
+        pending.add(new Record("add", media));
+    }
+
+    public void removed(Media media) {
+        pending.add(new Record("remove", media));
+    }
+
+    public void removedAll(Collection<? extends Media> items) {
+        for (Media media : items) {
+            pending.add(new Record("remove", media));
+        }
+    }
+
+    public void cleared() {
+        // the changes before are undone by this one
+        pending.clear();
+        pending.add(new Record("clear", null));
+    }
+
+    /**
+     * Applies the changes in the journal files to the collection, in the order they were made
+     * @param target the items of the catalogue
+     * @return the amount of changes applied
+     * @throws IOException if a journal can't be read, or is corrupt
+     */
+    public long replay(Collection<? super Media> target) throws IOException {
+        return replay(target, null);
+    }
+
+    /**
+     * Applies the changes in the journal files to the collection, in the order they were made
+     * @param target the items of the catalogue
+     * @param strings the dictionary through which strings of the items are shared, or null
+     * @return the amount of changes applied
+     * @throws IOException if a journal can't be read, or is corrupt
+     */
+    public long replay(Collection<? super Media> target, StringDictionary strings) throws IOException {
+        long count = 0;
+        for (Path file : new Path[]{compacting, journal}) {
+            if (Files.exists(file)) {
+                count += replay(file, target, strings);
+            }
+        }
+        return count;
+    }
+
+    private static long replay(Path file, Collection<? super Media> target, StringDictionary strings) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        long count = 0;
+        int start = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            if (i > start) {
+                try {
+                    apply(new String(data, start, i - start, StandardCharsets.UTF_8), target, strings);
+                } catch (IOException | RuntimeException e) {
+                    throw new IOException("Corrupt change at byte " + start + " of " + file + ": " + e.getMessage(), e);
+                }
+                count++;
+            }
+            start = i + 1;
+        }
+        // a line without a line break was cut short while it was appended, and is ignored
+        return count;
+    }
+
+    private static void apply(String line, Collection<? super Media> target, StringDictionary strings) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(line));
+        reader.beginArray();
+        String operation = reader.nextString();
+        if ("clear".equals(operation)) {
+            target.clear();
+        } else {
+            String arrayName = reader.nextString();
+            MediaSchema<?> schema = MediaSchema.ofArrayName(arrayName);
+            if (schema == null) {
+                throw new MalformedJsonException("Unknown type of media: " + arrayName);
+            }
+            Media media = schema.read(reader, strings);
+            switch (operation) {
+                case "add":
+                    target.add(media);
+                    break;
+                case "remove":
+                    target.remove(media);
+                    break;
+                default:
+                    throw new MalformedJsonException("Unknown change: " + operation);
+            }
+        }
+        reader.endArray();
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Expected the end of the change");
+        }
+    }
+
+    /**
+     * Appends the pending changes to the journal, and starts a compaction if it grew past the threshold
+     * @throws IOException if the journal can't be written. The changes stay pending in that case.
+     */
+    public void flush() throws IOException {
+        if (!pending.isEmpty()) {
+            StringWriter out = new StringWriter();
+            for (Record record : pending) {
+                record.writeTo(out);
+            }
+            append(out.toString().getBytes(StandardCharsets.UTF_8));
+            pending.clear();
+        }
+
+        if (Files.exists(journal) && Files.size(journal) >= compactionThreshold && !isCompacting()) {
+            compact();
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.truncate(completeLength(channel));
+            channel.position(channel.size());
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    // the length of the journal without a line that was cut short, so the next change doesn't end up on the same line
+    private static long completeLength(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * @return true if a compaction is running
+     */
+    public boolean isCompacting() {
+        return compaction != null && !compaction.isDone();
+    }
+
+    // starts a new journal, and writes the catalogue in full on a background thread
+    private void compact() throws IOException {
+        if (Files.exists(journal)) {
+            if (Files.exists(compacting)) {
+                // left over from a compaction that didn't finish, which this one includes
+                Files.write(compacting, Files.readAllBytes(journal), StandardOpenOption.APPEND);
+                Files.delete(journal);
+            } else {
+                Files.move(journal, compacting, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        Collection<? extends Media> snapshot = items.get();
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "catalogue compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = executor.submit(() -> {
+            CatalogueWriter.write(snapshot, catalogue);
+            Files.deleteIfExists(compacting);
+            return null;
+        });
+    }
+
+    /**
+     * Waits for a running compaction to finish
+     * @throws IOException if the compaction failed. The journals are left in place in that case.
+     */
+    public void awaitCompaction() throws IOException {
+        Future<?> compaction = this.compaction;
+        if (compaction == null) {
+            return;
+        }
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compacting the journal");
+        } catch (ExecutionException e) {
+            this.compaction = null;
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Compacting the journal failed", cause);
+        }
+    }
+
+    /**
+     * Deletes the journal files, for when the catalogue was written in full.
+     * Only touches the files, so it may be called from the thread that wrote the catalogue.
+     * @throws IOException if a file can't be deleted
+     */
+    public void discard() throws IOException {
+        Files.deleteIfExists(compacting);
+        Files.deleteIfExists(journal);
+    }
+
+    /**
+     * Waits for a running compaction to finish. The pending changes are discarded.
+     * @throws IOException if the compaction failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitCompaction();
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static class Record {
+        private final String operation;
+        private final Media media;
+
+        Record(String operation, Media media) {
+            this.operation = operation;
+            this.media = media;
+        }
+
+        void writeTo(StringWriter out) throws IOException {
+            JsonWriter writer = new JsonWriter(out);
+            writer.beginArray();
+            writer.value(operation);
+            if (media != null) {
+                writer.value(media.schema().getArrayName());
+                media.writeTo(writer);
+            }
+            writer.endArray();
+            writer.flush();
+            out.write('\n');
+        }
+    }
+
+}
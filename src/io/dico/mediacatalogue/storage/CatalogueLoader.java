@@ -0,0 +1,247 @@
+package io.dico.mediacatalogue.storage;
+
+import com.google.gson.stream.JsonReader;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaSchema;
+import io.dico.mediacatalogue.util.StringDictionary;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Streams media items from a catalogue file into a collection.
+ * The file is decoded as UTF-8 through a large buffer, and only the item being read is held by the loader,
+ * so memory use is bounded by the collection that receives the items.
+ *
+ * <p> A loader can report its progress every so many items or bytes, and can be cancelled from another thread.
+ * Items read before the cancellation stay in the collection.
+ */
+public class CatalogueLoader {
+
+    /**
+     * The default size of the buffer between the file and the decoder, in bytes
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Receives the progress of a loader
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param items the amount of items read so far
+         * @param bytes the amount of bytes read from the file so far
+         * @param totalBytes the size of the file
+         */
+        void progress(long items, long bytes, long totalBytes);
+
+    }
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private StringDictionary strings;
+    private ProgressListener listener;
+    private long progressItems;
+    private long progressBytes;
+    private volatile boolean cancelled;
+
+    /**
+     * @param bufferSize the size of the buffer between the file and the decoder, in bytes
+     * @return this
+     */
+    public CatalogueLoader withBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("The buffer size must be positive");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Shares the instances of repeated strings of the items through the dictionary
+     * @param strings the dictionary of the catalogue, or null to not share strings
+     * @return this
+     */
+    public CatalogueLoader withDictionary(StringDictionary strings) {
+        this.strings = strings;
+        return this;
+    }
+
+    /**
+     * @return The dictionary through which strings are shared, or null
+     */
+    public StringDictionary getDictionary() {
+        return strings;
+    }
+
+    /**
+     * Reports progress to the listener whenever the given amount of items or bytes has been read since the last report,
+     * and once more when the file has been read
+     * @param listener the listener
+     * @param everyItems the amount of items between reports, or 0 to not report by items
+     * @param everyBytes the amount of bytes between reports, or 0 to not report by bytes
+     * @return this
+     */
+    public CatalogueLoader withProgress(ProgressListener listener, long everyItems, long everyBytes) {
+        this.listener = listener;
+        this.progressItems = everyItems;
+        this.progressBytes = everyBytes;
+        return this;
+    }
+
+    /**
+     * Stops the current or next load after the item that is being read
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Loads the items in the file into the collection
+     * @param path the file
+     * @param target the collection, which receives the items in the order of the file
+     * @return the amount of items read
+     * @throws InterruptedIOException if the load was cancelled, or the thread was interrupted
+     * @throws IOException if the file can't be read, or isn't a catalogue
+     */
+    public long load(Path path, Collection<? super Media> target) throws IOException {
+        FileChannel opened;
+        try {
+            opened = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(path + " (No such file or directory)");
+        }
+        try (FileChannel file = opened;
+             CountingChannel channel = new CountingChannel(file);
+             Reader reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                     .onMalformedInput(CodingErrorAction.REPORT)
+                     .onUnmappableCharacter(CodingErrorAction.REPORT), bufferSize)) {
+            Progress progress = new Progress(channel, file.size());
+            read(reader, progress, target);
+            progress.finish();
+            return progress.items;
+        }
+    }
+
+    /**
+     * Reads the items of a catalogue into the collection
+     * @param reader the decoded file, which is closed by the caller
+     * @param progress the progress, to be advanced for every item that is added to the collection
+     * @param target the collection
+     * @throws IOException if the file can't be read, or isn't a catalogue
+     */
+    void read(Reader reader, Progress progress, Collection<? super Media> target) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            MediaSchema<?> schema = MediaSchema.ofArrayName(jsonReader.nextName());
+            if (schema == null) {
+                jsonReader.skipValue();
+                continue;
+            }
+
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                progress.checkCancelled();
+                target.add(schema.read(jsonReader, strings));
+                progress.advance(1);
+            }
+            jsonReader.endArray();
+        }
+        jsonReader.endObject();
+    }
+
+    /**
+     * Counts the items and bytes read, reports them to the listener and checks for cancellation
+     */
+    class Progress {
+        private final CountingChannel channel;
+        private final long totalBytes;
+        private long items;
+        private long nextItems;
+        private long nextBytes;
+        private long reported = -1;
+
+        Progress(CountingChannel channel, long totalBytes) {
+            this.channel = channel;
+            this.totalBytes = totalBytes;
+            this.nextItems = progressItems > 0 ? progressItems : Long.MAX_VALUE;
+            this.nextBytes = progressBytes > 0 ? progressBytes : Long.MAX_VALUE;
+        }
+
+        /**
+         * @throws InterruptedIOException if the load was cancelled, or the thread was interrupted
+         */
+        void checkCancelled() throws InterruptedIOException {
+            if (cancelled || Thread.currentThread().isInterrupted()) {
+                InterruptedIOException e = new InterruptedIOException("Loading was cancelled after " + items + " items");
+                e.bytesTransferred = (int) Math.min(Integer.MAX_VALUE, channel.count);
+                throw e;
+            }
+        }
+
+        /**
+         * @param count the amount of items that were added
+         */
+        void advance(int count) {
+            items += count;
+            if (listener != null && (items >= nextItems || channel.count >= nextBytes)) {
+                listener.progress(items, channel.count, totalBytes);
+                reported = items;
+                nextItems = progressItems > 0 ? items + progressItems : Long.MAX_VALUE;
+                nextBytes = progressBytes > 0 ? channel.count + progressBytes : Long.MAX_VALUE;
+            }
+        }
+
+        void finish() {
+            if (listener != null && reported != items) {
+                listener.progress(items, channel.count, totalBytes);
+            }
+        }
+    }
+
+    // counts the bytes read from a channel
+    static class CountingChannel implements ReadableByteChannel {
+        private final ReadableByteChannel delegate;
+        long count;
+
+        CountingChannel(ReadableByteChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int read = delegate.read(dst);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+}
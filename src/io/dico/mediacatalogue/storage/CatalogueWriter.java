@@ -0,0 +1,210 @@
+package io.dico.mediacatalogue.storage;
+
+import com.google.gson.stream.JsonWriter;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaSchema;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes whole catalogues, as json or in the binary format.
+ *
+ * <p> An instance keeps the json of the types of media it wrote, with the version it was given for it,
+ * so the items of a type are only serialized again once their version changed. The file is still written in full.
+ * The kept json is limited in size, as it is held for as long as the writer. An instance must not be used
+ * by multiple threads at once.
+ */
+public class CatalogueWriter {
+
+    /**
+     * The default limit of the size of the kept json, in bytes
+     */
+    public static final long DEFAULT_CACHE_LIMIT = 1 << 24;
+
+    private static final int bufferSize = 1 << 16;
+    private static final byte[] jsonStart = "{\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] jsonSeparator = ",\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] jsonEnd = "\n}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Replaces the file with the items. They are written to a temporary file next to it first,
+     * which is then moved over the file, so the file is never left half written.
+     * @param items the items
+     * @param path the file, which is written in the binary format if it has the extension of that format
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Collection<? extends Media> items, Path path) throws IOException {
+        if (isBinary(path)) {
+            replace(path, out -> BinaryCatalogue.write(items, out));
+        } else {
+            replace(path, out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writeJson(items, writer);
+                writer.flush();
+            });
+        }
+    }
+
+    /**
+     * Writes the items as json, grouped by type of media
+     * @param items the items
+     * @param out the writer, which is not closed
+     * @throws IOException if the writer fails
+     */
+    public static void writeJson(Collection<? extends Media> items, Writer out) throws IOException {
+        List<MediaSchema<?>> schemas = MediaSchema.values();
+        List<List<Media>> sections = new ArrayList<>();
+        for (int i = 0; i < schemas.size(); i++) {
+            sections.add(new ArrayList<>());
+        }
+        for (Media media : items) {
+            sections.get(media.schema().ordinal()).add(media);
+        }
+
+        JsonWriter jsonWriter = new JsonWriter(out);
+        jsonWriter.setIndent("  ");
+        jsonWriter.beginObject();
+        for (MediaSchema<?> schema : schemas) {
+            writeSection(schema, sections.get(schema.ordinal()), jsonWriter);
+        }
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    private static void writeSection(MediaSchema<?> schema, List<? extends Media> items, JsonWriter jsonWriter) throws IOException {
+        jsonWriter.name(schema.getArrayName());
+        jsonWriter.beginArray();
+        for (Media media : items) {
+            media.writeTo(jsonWriter);
+        }
+        jsonWriter.endArray();
+    }
+
+    private static boolean isBinary(Path path) {
+        return path.toString().endsWith(BinaryCatalogue.EXTENSION);
+    }
+
+    // writes to a temporary file next to the file, and moves it over the file
+    private static void replace(Path path, Content content) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        // created like any other file rather than as a private temporary file, so the permissions match a new catalogue
+        Path temp = absolute.resolveSibling(absolute.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        Files.createFile(temp);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), bufferSize)) {
+                content.writeTo(out);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private interface Content {
+
+        void writeTo(OutputStream out) throws IOException;
+
+    }
+
+    private final byte[][] jsonSections = new byte[MediaSchema.values().size()][];
+    private final int[] jsonVersions = new int[MediaSchema.values().size()];
+    private long cacheLimit = DEFAULT_CACHE_LIMIT;
+
+    /**
+     * @param cacheLimit the most bytes of json to keep between writes, or 0 to serialize every type on every write
+     * @return this
+     */
+    public CatalogueWriter withCacheLimit(long cacheLimit) {
+        if (cacheLimit < 0) {
+            throw new IllegalArgumentException("The cache limit must not be negative");
+        }
+        this.cacheLimit = cacheLimit;
+        return this;
+    }
+
+    /**
+     * Replaces the file with the items, like {@link #write(Collection, Path)}.
+     * In json, the items of a type are serialized again only if their version differs from the last write.
+     * @param sections the items of each type of media, indexed by the ordinal of its schema
+     * @param versions the version of each section, which changes whenever its items change
+     * @param path the file, which is written in the binary format if it has the extension of that format
+     * @throws IOException if the file can't be written
+     */
+    public void write(List<? extends List<? extends Media>> sections, int[] versions, Path path) throws IOException {
+        if (isBinary(path)) {
+            // the string dictionary is shared by all sections, so they're always written together
+            List<Media> items = new ArrayList<>();
+            for (List<? extends Media> section : sections) {
+                items.addAll(section);
+            }
+            replace(path, out -> BinaryCatalogue.write(items, out));
+            return;
+        }
+
+        List<MediaSchema<?>> schemas = MediaSchema.values();
+        byte[][] json = new byte[schemas.size()][];
+        for (MediaSchema<?> schema : schemas) {
+            int ordinal = schema.ordinal();
+            if (jsonSections[ordinal] != null && jsonVersions[ordinal] == versions[ordinal]) {
+                json[ordinal] = jsonSections[ordinal];
+            } else {
+                json[ordinal] = sectionJson(schema, sections.get(ordinal));
+            }
+        }
+        replace(path, out -> {
+            out.write(jsonStart);
+            for (int i = 0; i < json.length; i++) {
+                if (i > 0) {
+                    out.write(jsonSeparator);
+                }
+                out.write(json[i]);
+            }
+            out.write(jsonEnd);
+        });
+
+        // keep the sections that fit in the limit
+        long cached = 0;
+        for (int i = 0; i < json.length; i++) {
+            if (json[i].length <= cacheLimit - cached) {
+                jsonSections[i] = json[i];
+                jsonVersions[i] = versions[i];
+                cached += json[i].length;
+            } else {
+                jsonSections[i] = null;
+            }
+        }
+    }
+
+    // the json of a section inside the object of the file, as writeJson indents it
+    private static byte[] sectionJson(MediaSchema<?> schema, List<? extends Media> items) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter jsonWriter = new JsonWriter(out);
+        jsonWriter.setIndent("  ");
+        jsonWriter.beginObject();
+        writeSection(schema, items, jsonWriter);
+        jsonWriter.endObject();
+        jsonWriter.flush();
+        String json = out.toString();
+        // strip the braces of the object and the line breaks next to them
+        return json.substring(2, json.length() - 2).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
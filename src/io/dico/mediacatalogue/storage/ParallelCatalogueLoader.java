@@ -0,0 +1,295 @@
+package io.dico.mediacatalogue.storage;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import io.dico.mediacatalogue.media.Media;
+import io.dico.mediacatalogue.media.MediaSchema;
+import io.dico.mediacatalogue.util.StringDictionary;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A loader that decodes the items of a catalogue on worker threads.
+ *
+ * <p> The reading thread only finds where the items of the "films", "audio tracks" and "tv programmes" arrays
+ * begin and end, and hands them to the workers in chunks. The decoded chunks are added to the collection in
+ * the order of the file, so a container keeps the first of equal items, like it does with the sequential loader.
+ * A limited amount of chunks is in flight at any time, so memory use stays bounded.
+ */
+public class ParallelCatalogueLoader extends CatalogueLoader {
+
+    /**
+     * The default amount of items in a chunk
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final int threads;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public ParallelCatalogueLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads the amount of worker threads
+     */
+    public ParallelCatalogueLoader(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The amount of threads must be positive");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param chunkSize the amount of items decoded by a worker at once
+     * @return this
+     */
+    public ParallelCatalogueLoader withChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    @Override
+    void read(Reader reader, Progress progress, Collection<? super Media> target) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "catalogue loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            read(new Scanner(reader), executor, progress, target);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void read(Scanner scanner, ExecutorService executor, Progress progress, Collection<? super Media> target) throws IOException {
+        Deque<Future<List<Media>>> pending = new ArrayDeque<>();
+        int maxPending = threads * 2;
+        StringBuilder chunk = new StringBuilder();
+
+        scanner.expect('{');
+        boolean firstName = true;
+        while (scanner.hasNext('}', firstName)) {
+            firstName = false;
+            MediaSchema<?> schema = MediaSchema.ofArrayName(scanner.nextName());
+            if (schema == null) {
+                scanner.copyValue(null);
+                continue;
+            }
+
+            scanner.expect('[');
+            boolean firstItem = true;
+            while (scanner.hasNext(']', firstItem)) {
+                firstItem = false;
+                chunk.setLength(0);
+                chunk.append('[');
+                scanner.copyValue(chunk);
+                for (int i = 1; i < chunkSize && scanner.hasNext(']', false); i++) {
+                    chunk.append(',');
+                    scanner.copyValue(chunk);
+                }
+                chunk.append(']');
+
+                String items = chunk.toString();
+                pending.add(executor.submit(() -> decode(items, schema, getDictionary())));
+                if (pending.size() >= maxPending) {
+                    merge(pending.poll(), progress, target);
+                }
+            }
+            scanner.expect(']');
+        }
+        scanner.expect('}');
+
+        while (!pending.isEmpty()) {
+            merge(pending.poll(), progress, target);
+        }
+    }
+
+    private static List<Media> decode(String items, MediaSchema<?> schema, StringDictionary strings) throws IOException {
+        List<Media> result = new ArrayList<>();
+        JsonReader jsonReader = new JsonReader(new StringReader(items));
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            result.add(schema.read(jsonReader, strings));
+        }
+        jsonReader.endArray();
+        return result;
+    }
+
+    private static void merge(Future<List<Media>> future, Progress progress, Collection<? super Media> target) throws IOException {
+        progress.checkCancelled();
+        List<Media> items;
+        try {
+            items = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        target.addAll(items);
+        progress.advance(items.size());
+    }
+
+    // finds the structure of the file, copying values without decoding them
+    private static class Scanner {
+        private final Reader reader;
+        private final char[] buffer = new char[1 << 16];
+        private int position;
+        private int limit;
+
+        Scanner(Reader reader) {
+            this.reader = reader;
+        }
+
+        private int peek() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        private int peekNonWhitespace() throws IOException {
+            int c;
+            while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                position++;
+            }
+            return c;
+        }
+
+        private MalformedJsonException syntaxError(String message) {
+            return new MalformedJsonException(message);
+        }
+
+        void expect(char expected) throws IOException {
+            int c = peekNonWhitespace();
+            if (c != expected) {
+                throw syntaxError("Expected '" + expected + "' but was " + (c == -1 ? "the end of the file" : "'" + (char) c + "'"));
+            }
+            position++;
+        }
+
+        /**
+         * @param close the character that closes the object or array
+         * @param first true if no values were read from the object or array yet
+         * @return true if there is another value, in which case the separating comma was skipped
+         */
+        boolean hasNext(char close, boolean first) throws IOException {
+            int c = peekNonWhitespace();
+            if (c == close) {
+                return false;
+            }
+            if (!first) {
+                expect(',');
+                if (peekNonWhitespace() == close) {
+                    throw syntaxError("Expected a value after ','");
+                }
+            }
+            return true;
+        }
+
+        String nextName() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            if (peekNonWhitespace() != '"') {
+                throw syntaxError("Expected a name");
+            }
+            copyString(sb);
+            expect(':');
+            // decode the escape sequences in the name
+            JsonReader jsonReader = new JsonReader(new StringReader("[" + sb + "]"));
+            jsonReader.beginArray();
+            return jsonReader.nextString();
+        }
+
+        // copies the string at the current position, including its quotes, to the builder if it's not null
+        private void copyString(StringBuilder sb) throws IOException {
+            position++;
+            if (sb != null) {
+                sb.append('"');
+            }
+            boolean escaped = false;
+            while (true) {
+                int c = peek();
+                if (c == -1) {
+                    throw syntaxError("Unterminated string");
+                }
+                position++;
+                if (sb != null) {
+                    sb.append((char) c);
+                }
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Copies the value at the current position to the builder if it's not null, otherwise skips it
+         */
+        void copyValue(StringBuilder sb) throws IOException {
+            int depth = 0;
+            int c = peekNonWhitespace();
+            do {
+                if (c == -1) {
+                    throw syntaxError("Unexpected end of the file");
+                }
+                if (c == '"') {
+                    copyString(sb);
+                } else {
+                    if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        if (depth == 0) {
+                            throw syntaxError("Expected a value but was '" + (char) c + "'");
+                        }
+                        depth--;
+                    } else if (depth == 0 && c == ',') {
+                        throw syntaxError("Expected a value but was ','");
+                    }
+                    position++;
+                    if (sb != null) {
+                        sb.append((char) c);
+                    }
+                }
+                c = peek();
+                // a value at the top level ends at the next delimiter
+            } while (depth > 0 || !(c == -1 || c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t'));
+        }
+    }
+
+}
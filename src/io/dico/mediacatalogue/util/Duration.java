@@ -5,6 +5,8 @@ import java.util.regex.Pattern;
 
 public class Duration extends Number {
 
+    private static final Pattern unitPattern = Pattern.compile("-?[0-9]+[hms]");
+
     private static int parseInt(String input) {
         try {
             return Integer.parseInt(input);
@@ -49,8 +51,7 @@ public class Duration extends Number {
             return new Duration((int) (number * unit), parseMinutes);
         } catch (IllegalArgumentException e) {
             if (!input.contains(":")) {
-                Pattern pattern = Pattern.compile("-?[0-9]+[hms]");
-                Matcher matcher = pattern.matcher(input);
+                Matcher matcher = unitPattern.matcher(input);
                 int seconds = 0;
                 int end = 0;
                 while (matcher.find()) {
@@ -114,6 +115,13 @@ public class Duration extends Number {
         this.parsedMinutes = parsedMinutes;
     }
 
+    /**
+     * @return true if this duration was parsed from minutes, in which case it's displayed as hours and minutes
+     */
+    public boolean isParsedMinutes() {
+        return parsedMinutes;
+    }
+
     @Override
     public int intValue() {
         return seconds;
@@ -0,0 +1,141 @@
+package io.dico.mediacatalogue.util;
+
+import io.dico.mediacatalogue.media.Media;
+
+import java.util.Arrays;
+
+/**
+ * A map from non-negative int keys to media items, without boxing the keys.
+ *
+ * <p> Keys are kept in an open-addressing table with linear probing. Removing a key moves the keys after it
+ * back into the gap, so the table never fills up with markers of removed keys.
+ */
+public class IntMediaMap {
+
+    // keys + 1, such that 0 marks an empty slot
+    private int[] keys;
+    private Media[] values;
+    private int size;
+
+    public IntMediaMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize the amount of keys that the map should hold without growing
+     */
+    public IntMediaMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Media[capacity];
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // the slot of the key, or of the empty slot where it would be put
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @param key the key
+     * @return The item with the key, or null if there is none
+     */
+    public Media get(int key) {
+        return values[slot(key)];
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slot(key)] != 0;
+    }
+
+    /**
+     * @param key the key, which must not be negative
+     * @param value the item, which must not be null
+     * @return the item that had the key before, or null
+     */
+    public Media put(int key, Media value) {
+        if (key < 0 || value == null) {
+            throw new IllegalArgumentException("Keys must not be negative, and values must not be null");
+        }
+        int slot = slot(key);
+        Media previous = values[slot];
+        if (previous == null) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key + 1;
+            size++;
+        }
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * @param key the key
+     * @return the item that had the key, or null if there was none
+     */
+    public Media remove(int key) {
+        int slot = slot(key);
+        Media previous = values[slot];
+        if (previous == null) {
+            return null;
+        }
+        size--;
+        // move the following keys of the same run back, unless their own slot lies between the gap and them
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = mix(keys[next] - 1) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Media[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Media[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i] - 1);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+}
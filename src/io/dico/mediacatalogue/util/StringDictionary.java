@@ -0,0 +1,108 @@
+package io.dico.mediacatalogue.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a code to every distinct string, such that equal strings can share one instance and be compared as ints.
+ * Codes are handed out in order from 1, and 0 stands for null. Codes aren't freed when a string is no longer used,
+ * so they stay the same until the dictionary is cleared, and it grows with every distinct string until then.
+ *
+ * <p> A dictionary may be used by multiple threads at once. Looking up a string that has a code doesn't lock.
+ */
+public class StringDictionary {
+
+    /**
+     * The code of null
+     */
+    public static final int NULL = 0;
+
+    /**
+     * The code returned by {@link #find(String)} for strings that have no code
+     */
+    public static final int ABSENT = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // the strings by their code. Replaced when it grows, before the new codes are published in the map
+    private volatile String[] strings = new String[16];
+    private int size = 1;
+
+    /**
+     * @param string the string, or null
+     * @return The code of the string, which is assigned if it has none yet
+     */
+    public int encode(String string) {
+        if (string == null) {
+            return NULL;
+        }
+        Integer code = codes.get(string);
+        return code != null ? code : assign(string);
+    }
+
+    private synchronized int assign(String string) {
+        Integer code = codes.get(string);
+        if (code != null) {
+            return code;
+        }
+        String[] strings = this.strings;
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+        }
+        strings[size] = string;
+        this.strings = strings;
+        codes.put(string, size);
+        return size++;
+    }
+
+    /**
+     * @param string the string, or null
+     * @return The instance of the string that is shared by everything using this dictionary
+     */
+    public String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        // the code is looked up first, so the array read afterwards holds it
+        int code = encode(string);
+        return strings[code];
+    }
+
+    /**
+     * @param string the string, or null
+     * @return The code of the string, or {@link #ABSENT} if it has none
+     */
+    public int find(String string) {
+        if (string == null) {
+            return NULL;
+        }
+        Integer code = codes.get(string);
+        return code == null ? ABSENT : code;
+    }
+
+    /**
+     * @param code a code handed out by this dictionary
+     * @return The string with that code
+     */
+    public String decode(int code) {
+        return strings[code];
+    }
+
+    /**
+     * Forgets all strings, such that codes are handed out from 1 again.
+     * Must not be called while other threads use the dictionary, or while codes from before are still used.
+     */
+    public synchronized void clear() {
+        codes.clear();
+        strings = new String[16];
+        size = 1;
+    }
+
+    /**
+     * @return The amount of codes handed out, including the one for null
+     */
+    public int size() {
+        return codes.size() + 1;
+    }
+
+}